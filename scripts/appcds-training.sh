@@ -0,0 +1,23 @@
+#!/usr/bin/env bash
+# Genera el archivo de AppCDS (class-data sharing) a partir de una ejecución de entrenamiento.
+#
+# Uso: ./gradlew bootJar && scripts/appcds-training.sh
+# Resultado: build/extracted/app.jsa, para usar con -XX:SharedArchiveFile (ver startup-benchmark.sh).
+# La ejecución de entrenamiento termina justo después de refrescar el contexto
+# (spring.context.exit=onRefresh), así que necesita acceso a MongoDB como un arranque normal.
+set -euo pipefail
+
+JAR=$(ls build/libs/*.jar | grep -v -- '-plain.jar' | head -n 1)
+OUT=build/extracted
+PROFILE=${PROFILE:-fast-startup}
+
+rm -rf "$OUT"
+java -Djarmode=tools -jar "$JAR" extract --destination "$OUT"
+
+APP_JAR=$(ls "$OUT"/*.jar | head -n 1)
+java -XX:ArchiveClassesAtExit="$OUT/app.jsa" \
+	-Dspring.context.exit=onRefresh \
+	${AOT:+-Dspring.aot.enabled=true} \
+	-jar "$APP_JAR" --spring.profiles.active="$PROFILE"
+
+echo "Archivo AppCDS generado: $OUT/app.jsa (jar: $APP_JAR)"
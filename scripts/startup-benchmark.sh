@@ -0,0 +1,94 @@
+#!/usr/bin/env bash
+# Mide el tiempo hasta que la aplicación está lista para recibir tráfico (readiness UP) en cada
+# modo y falla si la mediana del modo más rápido supera TARGET_SECONDS.
+#
+# Uso: ./gradlew bootJar && scripts/appcds-training.sh && scripts/startup-benchmark.sh
+# Variables: RUNS (por modo, 5), TARGET_SECONDS (4.0), STARTUP_TIMEOUT (segundos por arranque, 60),
+#            PORT (puerto HTTP de las ejecuciones, 8080)
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+TARGET_SECONDS=${TARGET_SECONDS:-4.0}
+STARTUP_TIMEOUT=${STARTUP_TIMEOUT:-60}
+PORT=${PORT:-8080}
+JAR=$(ls build/libs/*.jar | grep -v -- '-plain.jar' | head -n 1)
+APP_JAR=$(ls build/extracted/*.jar 2>/dev/null | head -n 1 || true)
+ARCHIVE=build/extracted/app.jsa
+
+LOG=$(mktemp)
+APP_PID=
+stop_app() {
+	if [ -n "$APP_PID" ]; then
+		kill "$APP_PID" 2>/dev/null || true
+		wait "$APP_PID" 2>/dev/null || true
+		APP_PID=
+	fi
+}
+trap 'stop_app; rm -f "$LOG"' EXIT
+
+# Tiempo desde que se lanza la JVM hasta que /actuator/health/readiness responde UP. La línea
+# "Started DemoApplication" se escribe antes de los ApplicationRunner (precalentamiento de
+# cachés) y de ApplicationReadyEvent, así que no cuenta lo que espera el autoscaler.
+# spring.context.exit=onRefresh solo sirve para el entrenamiento de AppCDS.
+measure() {
+	: > "$LOG"
+	local start now ready=
+	start=$(date +%s%N)
+	java "$@" --server.port="$PORT" > "$LOG" 2>&1 &
+	APP_PID=$!
+	while kill -0 "$APP_PID" 2>/dev/null; do
+		now=$(date +%s%N)
+		if curl -fs "http://localhost:$PORT/actuator/health/readiness" 2>/dev/null | grep -q '"status":"UP"'; then
+			ready=1
+			break
+		fi
+		if [ $(((now - start) / 1000000000)) -ge "$STARTUP_TIMEOUT" ]; then
+			break
+		fi
+		sleep 0.05
+	done
+	stop_app
+	if [ -n "$ready" ]; then
+		awk -v ns="$((now - start))" 'BEGIN { printf "%.3f\n", ns / 1e9 }'
+	fi
+}
+
+median() {
+	sort -n | awk '{ v[NR] = $1 } END { if (NR == 0) exit 1; print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+run_mode() {
+	local name=$1; shift
+	local times=()
+	for _ in $(seq "$RUNS"); do
+		local t
+		t=$(measure "$@")
+		if [ -z "$t" ]; then
+			echo "$name: la aplicación no arrancó" >&2
+			return 1
+		fi
+		times+=("$t")
+	done
+	local m
+	m=$(printf '%s\n' "${times[@]}" | median)
+	printf '%-28s mediana %ss  (%s)\n' "$name" "$m" "${times[*]}"
+	BEST=$(awk -v a="${BEST:-999}" -v b="$m" 'BEGIN { print (b < a) ? b : a }')
+}
+
+BEST=
+run_mode "por defecto" -jar "$JAR"
+run_mode "fast-startup" -jar "$JAR" --spring.profiles.active=fast-startup
+if [ -n "$APP_JAR" ] && [ -f "$ARCHIVE" ]; then
+	run_mode "fast-startup + AppCDS" -XX:SharedArchiveFile="$ARCHIVE" -jar "$APP_JAR" \
+		--spring.profiles.active=fast-startup
+	run_mode "fast-startup + AppCDS + AOT" -XX:SharedArchiveFile="$ARCHIVE" -Dspring.aot.enabled=true \
+		-jar "$APP_JAR" --spring.profiles.active=fast-startup
+else
+	echo "Sin $ARCHIVE: ejecutar scripts/appcds-training.sh para medir AppCDS y AOT" >&2
+fi
+
+if awk -v m="$BEST" -v t="$TARGET_SECONDS" 'BEGIN { exit !(m > t) }'; then
+	echo "Mejor mediana ${BEST}s por encima del objetivo de ${TARGET_SECONDS}s" >&2
+	exit 1
+fi
+echo "Mejor mediana ${BEST}s (objetivo ${TARGET_SECONDS}s)"
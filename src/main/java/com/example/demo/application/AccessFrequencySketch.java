@@ -0,0 +1,93 @@
+package com.example.demo.application;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+
+/**
+ * Count-Min sketch con la lista de las K claves más frecuentes. La memoria es fija
+ * (depth x width contadores) sin importar cuántas claves distintas se consulten; solo
+ * las candidatas al top-K se guardan por nombre.
+ */
+final class AccessFrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int width;
+    private final int topK;
+    private final AtomicIntegerArray[] rows = new AtomicIntegerArray[DEPTH];
+    private final Map<String, Integer> candidates = new ConcurrentHashMap<>();
+
+    AccessFrequencySketch(int width, int topK) {
+        this.width = Integer.highestOneBit(Math.max(16, width - 1)) << 1;
+        this.topK = topK;
+        for (int i = 0; i < DEPTH; i++) {
+            rows[i] = new AtomicIntegerArray(this.width);
+        }
+    }
+
+    void increment(String key) {
+        int hash = hash(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, rows[i].incrementAndGet(slot(hash, i)));
+        }
+
+        Integer previous = candidates.put(key, estimate);
+        if (previous == null && candidates.size() > topK * 2) {
+            prune();
+        }
+    }
+
+    /**
+     * Las K claves con mayor frecuencia estimada, de mayor a menor.
+     */
+    List<Map.Entry<String, Integer>> top() {
+        return candidates.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    /**
+     * Envejecimiento: divide todos los contadores a la mitad para que las claves que dejaron
+     * de consultarse pierdan peso frente a las nuevas.
+     */
+    synchronized void halve() {
+        for (AtomicIntegerArray row : rows) {
+            for (int i = 0; i < width; i++) {
+                row.getAndUpdate(i, count -> count >>> 1);
+            }
+        }
+        candidates.replaceAll((key, count) -> count >>> 1);
+        candidates.values().removeIf(count -> count == 0);
+    }
+
+    private synchronized void prune() {
+        if (candidates.size() <= topK * 2) {
+            return;
+        }
+        Set<String> keep = top().stream().map(Map.Entry::getKey).collect(Collectors.toSet());
+        candidates.keySet().retainAll(keep);
+    }
+
+    private int slot(int hash, int row) {
+        int mixed = (hash ^ SEEDS[row]) * 0x9E3779B9;
+        return (mixed ^ (mixed >>> 16)) & (width - 1);
+    }
+
+    private static int hash(String key) {
+        int hash = 0x811C9DC5;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        return hash;
+    }
+}
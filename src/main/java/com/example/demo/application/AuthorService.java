@@ -6,13 +6,16 @@ import com.example.demo.controllers.domain.repository.BookRepository;
 import com.example.demo.controllers.dto.AuthorUpdateRequest;
 import com.example.demo.controllers.exception.AuthorNotFoundException;
 import com.example.demo.controllers.response.AuthorResponse;
+import com.example.demo.controllers.response.AuthorStatsResponse;
+import com.example.demo.controllers.response.PageResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -25,17 +28,19 @@ public class AuthorService {
 
     private final AuthorRepository authorRepository;
     private final BookRepository bookRepository;
-    private final CacheManager cacheManager;
+    private final CatalogCacheInvalidator cacheInvalidator;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final MongoTemplate mongoTemplate;
+    private final DataAccessProfile dataAccessProfile;
+    private final AuthorStatsService authorStatsService;
 
-    @Transactional(readOnly = true)
     @Cacheable(value="authors")
     public List<AuthorResponse> getAllAuthors() {
-        return authorRepository.findAll().stream()
+        return mongoTemplate.find(dataAccessProfile.cachedCatalogRead(new Query()), Author.class).stream()
                 .map(this::mapToAuthorResponse)
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     @Cacheable(value="authorById")
     public AuthorResponse getAuthorById(String id) {
         return authorRepository.findById(id)
@@ -43,26 +48,40 @@ public class AuthorService {
                 .orElseThrow(() -> new AuthorNotFoundException("Autor no encontrado con ID: " + id));
     }
 
-    @Transactional
-    public AuthorResponse updateAuthor(String id, AuthorUpdateRequest request) {
-
-        cacheManager.getCache("authorById").evict(id);
-        cacheManager.getCache("authors").clear();
+    /**
+     * Autor leído del primario sin pasar por la caché "authorById". Lo usa la respuesta con ETag:
+     * la versión ya se leyó de Mongo y la caché puede conservar la representación anterior hasta
+     * que se invalida tras el commit, lo que dejaría un cuerpo viejo bajo el ETag nuevo.
+     */
+    public AuthorResponse getCurrentAuthor(String id) {
+        Author author = mongoTemplate.findOne(
+                dataAccessProfile.cachedCatalogRead(Query.query(Criteria.where("id").is(id))), Author.class);
+        if (author == null) {
+            throw new AuthorNotFoundException("Autor no encontrado con ID: " + id);
+        }
+        return mapToAuthorResponse(author);
+    }
 
-        Author author = authorRepository.findById(id)
-                .orElseThrow(() -> new AuthorNotFoundException("Autor no encontrado con ID: " + id));
+    public AuthorResponse updateAuthor(String id, AuthorUpdateRequest request) {
 
-        String oldName = author.getName();
         String newName = request.getName();
+        String[] oldName = new String[1];
+
+        Author updatedAuthor = retryExecutor.execute("author.update", () -> {
+            Author author = authorRepository.findById(id)
+                    .orElseThrow(() -> new AuthorNotFoundException("Autor no encontrado con ID: " + id));
 
-        author.setName(newName);
-        author.setBiography(request.getBiography());
+            oldName[0] = author.getName();
+            author.setName(newName);
+            author.setBiography(request.getBiography());
 
-        Author updatedAuthor = authorRepository.save(author);
+            return authorRepository.save(author);
+        });
+        cacheInvalidator.authorChanged(id);
 
         // Si el nombre ha cambiado, actualizar los libros de forma asíncrona
-        if (!oldName.equals(newName)) {
-            updateBookAuthorNamesAsync(oldName, newName);
+        if (!oldName[0].equals(newName)) {
+            updateBookAuthorNamesAsync(oldName[0], newName);
         }
 
         return mapToAuthorResponse(updatedAuthor);
@@ -76,15 +95,28 @@ public class AuthorService {
     public CompletableFuture<Void> updateBookAuthorNamesAsync(String oldName, String newName) {
         log.info("Iniciando actualización asíncrona de libros del autor '{}' a '{}'", oldName, newName);
         return CompletableFuture.runAsync(() -> {
-            bookRepository.findByAuthorContainingIgnoreCase(oldName).forEach(book -> {
-                book.setAuthor(newName);
-                bookRepository.save(book);
-                log.debug("Actualizado el autor del libro con ID: {}", book.getId());
-            });
+            bookRepository.findByAuthor(oldName).forEach(found ->
+                    retryExecutor.run("author.renameInBook", () -> bookRepository.findById(found.getId()).ifPresent(book -> {
+                        book.setAuthor(newName);
+                        bookRepository.save(book);
+                        cacheInvalidator.bookDetailChanged(book.getId());
+                        log.debug("Actualizado el autor del libro con ID: {}", book.getId());
+                    })));
+            cacheInvalidator.bookListsChanged();
+            authorStatsService.authorChanged(oldName);
+            authorStatsService.authorChanged(newName);
             log.info("Finalizada la actualización de libros para el autor '{}'", newName);
         });
     }
 
+    public AuthorStatsResponse getAuthorStats(String id) {
+        return authorStatsService.getStats(id);
+    }
+
+    public PageResponse<AuthorStatsResponse> getAuthorDirectory(int page, int size) {
+        return authorStatsService.getDirectory(page, size);
+    }
+
     private AuthorResponse mapToAuthorResponse(Author author) {
         return AuthorResponse.builder()
                 .id(author.getId())
@@ -0,0 +1,222 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Author;
+import com.example.demo.controllers.domain.entity.AuthorStats;
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.exception.AuthorNotFoundException;
+import com.example.demo.controllers.response.AuthorStatsResponse;
+import com.example.demo.controllers.response.PageResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estadísticas por autor (libros, calificación, préstamos, favoritos y popularidad) en la vista
+ * materializada "estadisticas_autores".
+ *
+ * Un único pipeline agrupa "libros" por autor y escribe el resultado con $merge. Se ejecuta:
+ * - de forma incremental, solo para los autores marcados como modificados, en lotes cada
+ *   author-stats.flush-interval-ms. Los préstamos y reseñas actualizan el libro, así que basta con
+ *   observar los cambios de libros (change stream) y los cambios de autor de un libro;
+ * - completo, periódicamente, como red de seguridad (elimina además autores sin libros).
+ */
+@Slf4j
+@Service
+public class AuthorStatsService implements CatalogProjection {
+
+    private static final String COLLECTION = "estadisticas_autores";
+
+    private final MongoTemplate mongoTemplate;
+    private final DataAccessProfile dataAccessProfile;
+    private final Set<String> dirtyAuthors = ConcurrentHashMap.newKeySet();
+
+    @Value("${author-stats.max-time:PT30S}")
+    private Duration maxTime = Duration.ofSeconds(30);
+
+    public AuthorStatsService(MongoTemplate mongoTemplate, DataAccessProfile dataAccessProfile) {
+        this.mongoTemplate = mongoTemplate;
+        this.dataAccessProfile = dataAccessProfile;
+    }
+
+    /**
+     * Marca un autor (por nombre) para recalcular en el siguiente lote.
+     */
+    public void authorChanged(String authorName) {
+        if (authorName != null) {
+            dirtyAuthors.add(authorName);
+        }
+    }
+
+    @Override
+    public void onChange(CatalogChange change) {
+        if (!CatalogChangeStreamListener.BOOKS.equals(change.collection()) || change.id() == null) {
+            return;
+        }
+        // Los borrados no traen el autor: los marca BookService y, si no, el recálculo completo
+        Query query = Query.query(Criteria.where("id").is(change.id()));
+        query.fields().include("author");
+        Book book = mongoTemplate.findOne(query, Book.class);
+        if (book != null) {
+            authorChanged(book.getAuthor());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${author-stats.flush-interval-ms:2000}")
+    public void flushDirtyAuthors() {
+        if (dirtyAuthors.isEmpty()) {
+            return;
+        }
+        List<String> authors = new ArrayList<>(dirtyAuthors);
+        dirtyAuthors.removeAll(authors);
+        try {
+            refresh(authors);
+        } catch (RuntimeException ex) {
+            dirtyAuthors.addAll(authors);
+            log.warn("No se pudieron recalcular las estadísticas de {} autores", authors.size(), ex);
+        }
+    }
+
+    /**
+     * Recalcula todos los autores y elimina las estadísticas de autores que ya no tienen libros.
+     */
+    @Scheduled(cron = "${author-stats.full-refresh-cron:0 15 * * * *}")
+    public void refreshAll() {
+        Instant start = Instant.now();
+        try {
+            runPipeline(null, start);
+            long removed = mongoTemplate.remove(Query.query(Criteria.where("updatedAt").lt(start)), AuthorStats.class)
+                    .getDeletedCount();
+            log.info("Estadísticas de autores recalculadas en {} ms ({} obsoletas eliminadas)",
+                    Duration.between(start, Instant.now()).toMillis(), removed);
+        } catch (RuntimeException ex) {
+            log.warn("Falló el recálculo completo de estadísticas de autores", ex);
+        }
+    }
+
+    public AuthorStatsResponse getStats(String authorId) {
+        Query authorQuery = Query.query(Criteria.where("id").is(authorId));
+        authorQuery.fields().include("name");
+        Author author = mongoTemplate.findOne(authorQuery, Author.class);
+        if (author == null) {
+            throw new AuthorNotFoundException("Autor no encontrado con ID: " + authorId);
+        }
+
+        AuthorStats stats = mongoTemplate.findById(author.getName(), AuthorStats.class);
+        if (stats == null) {
+            // Autor nuevo o sin libros todavía: se calcula en el momento
+            refresh(List.of(author.getName()));
+            stats = mongoTemplate.findById(author.getName(), AuthorStats.class);
+        }
+        if (stats == null) {
+            return AuthorStatsResponse.builder().authorId(author.getId()).name(author.getName()).build();
+        }
+        return mapToResponse(stats);
+    }
+
+    /**
+     * Directorio de autores ordenado por popularidad (índice popularity, _id).
+     */
+    public PageResponse<AuthorStatsResponse> getDirectory(int page, int size) {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.DESC, "popularity").and(Sort.by(Sort.Direction.ASC, "id")))
+                .skip((long) page * size)
+                .limit(size);
+        List<AuthorStatsResponse> content = mongoTemplate.find(dataAccessProfile.catalogRead(query), AuthorStats.class)
+                .stream().map(this::mapToResponse).toList();
+        long total = mongoTemplate.count(dataAccessProfile.catalogRead(new Query()), AuthorStats.class);
+        return PageResponse.of(content, page, size, total);
+    }
+
+    private void refresh(Collection<String> authorNames) {
+        runPipeline(authorNames, Instant.now());
+        // Autores que ya no tienen libros: el pipeline no produce documento para ellos
+        Query byAuthor = Query.query(Criteria.where("author").in(authorNames));
+        List<String> withBooks = mongoTemplate.findDistinct(byAuthor, "author", Book.class, String.class);
+        List<String> orphans = authorNames.stream().filter(name -> !withBooks.contains(name)).toList();
+        if (!orphans.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("id").in(orphans)), AuthorStats.class);
+        }
+    }
+
+    private void runPipeline(Collection<String> authorNames, Instant now) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (authorNames != null) {
+            stages.add(Aggregation.match(Criteria.where("author").in(authorNames)));
+        }
+        stages.add(stage("$group", new Document("_id", "$author")
+                .append("bookCount", new Document("$sum", 1))
+                .append("totalRatings", new Document("$sum", new Document("$ifNull", List.of("$ratingsCount", 0))))
+                .append("ratingSum", new Document("$sum", new Document("$multiply", List.of(
+                        new Document("$ifNull", List.of("$averageRating", 0)),
+                        new Document("$ifNull", List.of("$ratingsCount", 0))))))
+                // Préstamos embebidos más los ya archivados (LoanArchiveService)
+                .append("totalLoans", new Document("$sum", new Document("$add", List.of(
+                        new Document("$size", new Document("$ifNull", List.of("$loans", List.of()))),
+                        new Document("$ifNull", List.of("$archivedLoansCount", 0))))))
+                .append("activeLoans", new Document("$sum", new Document("$size", new Document("$filter", new Document()
+                        .append("input", new Document("$ifNull", List.of("$loans", List.of())))
+                        .append("cond", new Document("$in", List.of("$$this.status", List.of("Prestado", "Vencido"))))))))
+                .append("totalFavorites", new Document("$sum", new Document("$ifNull", List.of("$favoritesCount", 0))))));
+        stages.add(stage("$lookup", new Document("from", mongoTemplate.getCollectionName(Author.class))
+                .append("localField", "_id")
+                .append("foreignField", "name")
+                .append("as", "author")));
+        stages.add(stage("$set", new Document()
+                .append("authorId", new Document("$toString", new Document("$arrayElemAt", List.of("$author._id", 0))))
+                .append("averageRating", new Document("$cond", List.of(
+                        new Document("$gt", List.of("$totalRatings", 0)),
+                        new Document("$divide", List.of("$ratingSum", "$totalRatings")),
+                        0)))
+                .append("popularity", new Document("$add", List.of("$totalLoans", "$totalFavorites", "$totalRatings")))
+                .append("updatedAt", Date.from(now))));
+        stages.add(stage("$unset", List.of("author", "ratingSum")));
+        stages.add(Aggregation.merge()
+                .intoCollection(COLLECTION)
+                .on("_id")
+                .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build());
+
+        mongoTemplate.aggregate(Aggregation.newAggregation(stages)
+                        .withOptions(AggregationOptions.builder().maxTime(maxTime).build()),
+                mongoTemplate.getCollectionName(Book.class), Document.class);
+    }
+
+    private static AggregationOperation stage(String name, Object body) {
+        return context -> new Document(name, body);
+    }
+
+    private AuthorStatsResponse mapToResponse(AuthorStats stats) {
+        return AuthorStatsResponse.builder()
+                .authorId(stats.getAuthorId())
+                .name(stats.getId())
+                .bookCount(stats.getBookCount())
+                .averageRating(stats.getAverageRating())
+                .totalRatings(stats.getTotalRatings())
+                .totalLoans(stats.getTotalLoans())
+                .activeLoans(stats.getActiveLoans())
+                .totalFavorites(stats.getTotalFavorites())
+                .popularity(stats.getPopularity())
+                .updatedAt(stats.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.exception.BookNotFoundException;
+import com.example.demo.controllers.response.BookResponse;
+import com.example.demo.controllers.response.ReadModelRebuildResponse;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modelo de lectura de libros (CQRS): en "libros_lectura" se guarda cada libro ya con la forma
+ * de {@link BookResponse}, junto con la versión del libro de la que se derivó. La lectura por ID
+ * es una búsqueda por clave primaria sin reconstruir el grafo de préstamos.
+ *
+ * Se actualiza tras el commit de las escrituras de libros, préstamos y reseñas, y por change
+ * stream para cualquier otra escritura (renombres de autor o usuario, favoritos, otras
+ * instancias). Cada reemplazo solo se aplica si la versión es más nueva que la guardada, así
+ * que las actualizaciones repetidas o fuera de orden son inofensivas.
+ *
+ * Métricas: read_model.books.lookup (result = hit, miss o stale) y read_model.books.refresh
+ * (result = written, skipped o deleted).
+ */
+@Slf4j
+@Service
+public class BookReadModelService implements CatalogProjection {
+
+    static final String COLLECTION = "libros_lectura";
+
+    private static final String VERSION = "version";
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${read-model.rebuild.batch-size:500}")
+    private int rebuildBatchSize = 500;
+
+    public BookReadModelService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Libro por ID desde el modelo de lectura. Si falta o es anterior a la versión esperada
+     * (la del ETag), se regenera desde "libros" en ese momento.
+     */
+    public BookResponse getBook(String id, long expectedVersion) {
+        Document document = mongoTemplate.findById(id, Document.class, COLLECTION);
+        if (document != null && expectedVersion >= 0 && versionOf(document) >= expectedVersion) {
+            lookup("hit");
+            return mongoTemplate.getConverter().read(BookResponse.class, document);
+        }
+        lookup(document == null ? "miss" : "stale");
+        BookResponse response = refresh(id);
+        if (response == null) {
+            throw new BookNotFoundException("Libro no encontrado con ID: " + id);
+        }
+        return response;
+    }
+
+    /**
+     * Vuelve a derivar el documento del libro; si el libro ya no existe lo elimina.
+     */
+    public BookResponse refresh(String bookId) {
+        Book book = mongoTemplate.findById(bookId, Book.class);
+        if (book == null) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(documentId(bookId))), COLLECTION);
+            refreshed("deleted");
+            return null;
+        }
+        ReplaceOneModel<Document> replacement = replacement(book);
+        try {
+            mongoTemplate.getCollection(COLLECTION).replaceOne(replacement.getFilter(), replacement.getReplacement(),
+                    replacement.getReplaceOptions());
+            refreshed("written");
+        } catch (MongoWriteException ex) {
+            if (ex.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw ex;
+            }
+            // Ya hay una versión igual o más nueva
+            refreshed("skipped");
+        }
+        return BookService.mapToBookResponse(book);
+    }
+
+    /**
+     * Tras el commit de la transacción actual, o de inmediato si no hay una.
+     */
+    public void refreshAfterCommit(String bookId) {
+        TransactionRunner.afterCommit(() -> {
+            try {
+                refresh(bookId);
+            } catch (RuntimeException ex) {
+                // El change stream volverá a intentarlo; la escritura ya está confirmada
+                log.warn("No se pudo actualizar el modelo de lectura del libro {}", bookId, ex);
+            }
+        });
+    }
+
+    @Override
+    public void onChange(CatalogChange change) {
+        if (CatalogChangeStreamListener.BOOKS.equals(change.collection()) && change.id() != null) {
+            refresh(change.id());
+        }
+    }
+
+    /**
+     * Regenera todo el modelo de lectura desde "libros": los IDs se reparten en lotes que se
+     * procesan en paralelo con escrituras masivas, y al final se eliminan los documentos de
+     * libros que ya no existen.
+     */
+    public ReadModelRebuildResponse rebuild(int parallelism) {
+        long start = System.currentTimeMillis();
+        List<Object> ids = new ArrayList<>();
+        Query idsQuery = new Query();
+        idsQuery.fields().include("_id");
+        mongoTemplate.find(idsQuery, Document.class, mongoTemplate.getCollectionName(Book.class))
+                .forEach(document -> ids.add(document.get("_id")));
+
+        AtomicLong written = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Future<?>> batches = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += rebuildBatchSize) {
+                List<Object> batch = ids.subList(from, Math.min(ids.size(), from + rebuildBatchSize));
+                batches.add(pool.submit(() -> rebuildBatch(batch, written, skipped)));
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrucción del modelo de lectura interrumpida", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Falló la reconstrucción del modelo de lectura", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long removed = removeOrphans(new HashSet<>(ids));
+        long millis = System.currentTimeMillis() - start;
+        log.info("Modelo de lectura de libros reconstruido: {} libros, {} escritos, {} sin cambios, {} eliminados, {} ms",
+                ids.size(), written.get(), skipped.get(), removed, millis);
+        return ReadModelRebuildResponse.builder()
+                .books(ids.size())
+                .written(written.get())
+                .unchanged(skipped.get())
+                .removed(removed)
+                .elapsedMillis(millis)
+                .build();
+    }
+
+    private void rebuildBatch(List<Object> ids, AtomicLong written, AtomicLong skipped) {
+        List<Book> books = mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), Book.class);
+        if (books.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>(books.size());
+        books.forEach(book -> writes.add(replacement(book)));
+        try {
+            mongoTemplate.getCollection(COLLECTION).bulkWrite(writes,
+                    new BulkWriteOptions().ordered(false));
+            written.addAndGet(writes.size());
+        } catch (MongoBulkWriteException ex) {
+            long duplicates = ex.getWriteErrors().stream()
+                    .filter(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY)
+                    .count();
+            if (duplicates != ex.getWriteErrors().size()) {
+                BulkWriteError first = ex.getWriteErrors().get(0);
+                throw new IllegalStateException("Error al escribir el modelo de lectura: " + first.getMessage(), ex);
+            }
+            skipped.addAndGet(duplicates);
+            written.addAndGet(writes.size() - duplicates);
+        }
+    }
+
+    private long removeOrphans(Set<Object> bookIds) {
+        Query idsQuery = new Query();
+        idsQuery.fields().include("_id");
+        List<Object> orphans = mongoTemplate.find(idsQuery, Document.class, COLLECTION).stream()
+                .map(document -> document.get("_id"))
+                .filter(id -> !bookIds.contains(id))
+                .toList();
+        if (orphans.isEmpty()) {
+            return 0;
+        }
+        return mongoTemplate.remove(Query.query(Criteria.where("_id").in(orphans)), COLLECTION).getDeletedCount();
+    }
+
+    /**
+     * Reemplazo condicionado a que la versión guardada sea anterior. Si es igual o más nueva el
+     * filtro no coincide, el upsert intenta insertar y falla con clave duplicada: se ignora.
+     */
+    private ReplaceOneModel<Document> replacement(Book book) {
+        long version = book.getVersion() != null ? book.getVersion() : 0;
+        Document document = toDocument(BookService.mapToBookResponse(book));
+        document.put(VERSION, version);
+        Bson filter = Filters.and(Filters.eq("_id", document.get("_id")), Filters.lt(VERSION, version));
+        return new ReplaceOneModel<>(filter, document, new ReplaceOptions().upsert(true));
+    }
+
+    private Document toDocument(BookResponse response) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(response, document);
+        document.remove("_class");
+        return document;
+    }
+
+    // El ID con la misma conversión que aplica el convertidor al escribir (ObjectId si es válido)
+    private Object documentId(String bookId) {
+        return toDocument(BookResponse.builder().id(bookId).build()).get("_id");
+    }
+
+    private static long versionOf(Document document) {
+        return document.get(VERSION) instanceof Number number ? number.longValue() : -1;
+    }
+
+    private void lookup(String result) {
+        meterRegistry.counter("read_model.books.lookup", "result", result).increment();
+    }
+
+    private void refreshed(String result) {
+        meterRegistry.counter("read_model.books.refresh", "result", result).increment();
+    }
+}
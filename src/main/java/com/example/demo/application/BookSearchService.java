@@ -0,0 +1,141 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.Model.BookSummary;
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.dto.BookSearchFilter;
+import com.example.demo.controllers.response.FacetedSearchResponse;
+import com.example.demo.controllers.response.PageResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Búsqueda facetada del catálogo: combina todos los filtros en un único $match indexado y
+ * obtiene la página de resultados y los conteos por faceta en una sola agregación $facet.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookSearchService {
+
+    private static final int MAX_FACET_VALUES = 20;
+    private static final String[] FACETS = {"categories", "language", "publisher", "year", "available"};
+
+    private final MongoTemplate mongoTemplate;
+    private final DataAccessProfile dataAccessProfile;
+
+    @Cacheable(value = "bookFacets", key = "#filter.signature()")
+    public FacetedSearchResponse search(BookSearchFilter filter) {
+        BookSearchFilter normalized = filter.normalized();
+        FacetOperation facets = Aggregation.facet(
+                        Aggregation.sort(Sort.by(Sort.Direction.DESC, "averageRating").and(Sort.by("id"))),
+                        Aggregation.skip((long) normalized.getPage() * normalized.getSize()),
+                        Aggregation.limit(normalized.getSize()),
+                        Aggregation.project("title", "coverImageUrl", "averageRating", "publicationDate"))
+                .as("results")
+                .and(Aggregation.count().as("total")).as("total")
+                .and(Aggregation.unwind("categories"),
+                        Aggregation.sortByCount("categories"),
+                        Aggregation.limit(MAX_FACET_VALUES)).as("categories")
+                .and(Aggregation.sortByCount("language"),
+                        Aggregation.limit(MAX_FACET_VALUES)).as("language")
+                .and(Aggregation.sortByCount("publisher"),
+                        Aggregation.limit(MAX_FACET_VALUES)).as("publisher")
+                .and(Aggregation.project().and(DateOperators.Year.yearOf("publicationDate")).as("year"),
+                        Aggregation.sortByCount("year"),
+                        Aggregation.limit(MAX_FACET_VALUES)).as("year")
+                .and(Aggregation.sortByCount("available")).as("available");
+
+        TypedAggregation<Book> aggregation = Aggregation.newAggregation(Book.class,
+                Aggregation.match(toCriteria(normalized)),
+                facets).withOptions(dataAccessProfile.cachedCatalogAggregation());
+
+        Document result = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+        return toResponse(normalized, result);
+    }
+
+    private Criteria toCriteria(BookSearchFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+
+        // El filtro ya viene normalizado (ver BookSearchFilter.normalized)
+        if (filter.getCategories() != null) {
+            criteria.add(Criteria.where("categories").all(filter.getCategories()));
+        }
+        if (filter.getLanguage() != null) {
+            criteria.add(Criteria.where("language").is(filter.getLanguage()));
+        }
+        if (filter.getPublisher() != null) {
+            criteria.add(Criteria.where("publisher").is(filter.getPublisher()));
+        }
+        if (filter.getYearFrom() != null || filter.getYearTo() != null) {
+            // El año se convierte a límites de fecha para poder usar el índice de publicationDate
+            Criteria publicationDate = Criteria.where("publicationDate");
+            if (filter.getYearFrom() != null) {
+                publicationDate.gte(LocalDate.of(filter.getYearFrom(), 1, 1));
+            }
+            if (filter.getYearTo() != null) {
+                publicationDate.lt(LocalDate.of(filter.getYearTo() + 1, 1, 1));
+            }
+            criteria.add(publicationDate);
+        }
+        if (filter.getAvailable() != null) {
+            criteria.add(Criteria.where("available").is(filter.getAvailable()));
+        }
+
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+
+    private FacetedSearchResponse toResponse(BookSearchFilter filter, Document result) {
+        List<BookSummary> books = new ArrayList<>();
+        long total = 0;
+        Map<String, List<FacetedSearchResponse.FacetCount>> facets = new LinkedHashMap<>();
+
+        if (result != null) {
+            for (Document document : result.getList("results", Document.class, List.of())) {
+                books.add(createBookSummary(mongoTemplate.getConverter().read(Book.class, document)));
+            }
+            List<Document> totals = result.getList("total", Document.class, List.of());
+            if (!totals.isEmpty()) {
+                total = ((Number) totals.get(0).get("total")).longValue();
+            }
+            for (String facet : FACETS) {
+                facets.put(facet, result.getList(facet, Document.class, List.of()).stream()
+                        .map(bucket -> FacetedSearchResponse.FacetCount.builder()
+                                .value(String.valueOf(bucket.get("_id")))
+                                .count(((Number) bucket.get("count")).longValue())
+                                .build())
+                        .toList());
+            }
+        }
+
+        return FacetedSearchResponse.builder()
+                .results(PageResponse.of(books, filter.getPage(), filter.getSize(), total))
+                .facets(facets)
+                .build();
+    }
+
+    private static BookSummary createBookSummary(Book book) {
+        return BookSummary.builder()
+                .bookId(book.getId())
+                .title(book.getTitle())
+                .coverImageUrl(book.getCoverImageUrl())
+                .averageRating(book.getAverageRating())
+                .publicationDate(book.getPublicationDate())
+                .build();
+    }
+}
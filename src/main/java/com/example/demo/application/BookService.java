@@ -6,6 +6,7 @@ import com.example.demo.controllers.domain.entity.Author;
 import com.example.demo.controllers.domain.entity.Book;
 import com.example.demo.controllers.domain.entity.Categories;
 import com.example.demo.controllers.domain.entity.Review;
+import com.example.demo.controllers.domain.entity.Users;
 import com.example.demo.controllers.domain.repository.AuthorRepository;
 import com.example.demo.controllers.domain.repository.BookRepository;
 import com.example.demo.controllers.domain.repository.CategoriesRepository;
@@ -13,22 +14,30 @@ import com.example.demo.controllers.domain.repository.ReviewRepository;
 import com.example.demo.controllers.dto.BookRequest;
 import com.example.demo.controllers.exception.BookAlreadyExistsException;
 import com.example.demo.controllers.exception.BookNotFoundException;
+import com.example.demo.controllers.exception.CategoryNotFoundException;
 import com.example.demo.controllers.response.BookResponse;
 import com.example.demo.controllers.response.LoanSummaryResponse;
+import com.example.demo.controllers.response.PageResponse;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.CacheManager;
+import org.bson.Document;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -43,25 +52,54 @@ public class BookService {
     private final AuthorRepository authorRepository;
     private final CategoriesRepository genreRepository;
     private final MongoTemplate mongoTemplate;
-    private final CacheManager cacheManager;
+    private final CatalogCacheInvalidator cacheInvalidator;
+    private final SingleFlightCache singleFlightCache;
+    private final DataAccessProfile dataAccessProfile;
     private final ReviewRepository reviewRepository;
+    private final LeaderboardService leaderboardService;
+    private final NewReleasesService newReleasesService;
+    private final RecommendationService recommendationService;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final TransactionRunner transactionRunner;
+    private final BookReadModelService bookReadModel;
+    private final AuthorStatsService authorStatsService;
+    private final UniqueKeyFilter uniqueKeyFilter;
 
-    @Transactional
     public BookResponse createBook(BookRequest request) {
-        cacheManager.getCache("books").clear();
-
-        // Verificar si ya existe un libro con el mismo ISBN
-        if (bookRepository.existsByIsbn(request.getIsbn())) {
+        // Verificar si ya existe un libro con el mismo ISBN (el filtro evita la consulta si seguro no existe)
+        if (isbnExists(request.getIsbn())) {
             throw new BookAlreadyExistsException("Ya existe un libro con el ISBN: " + request.getIsbn());
         }
 
+        try {
+            return transactionRunner.execute("book.create", () -> createBookInTransaction(request));
+        } catch (DuplicateKeyException ex) {
+            throw duplicateIsbn(ex, request.getIsbn());
+        }
+    }
+
+    private boolean isbnExists(String isbn) {
+        return uniqueKeyFilter.mightContainIsbn(isbn) && bookRepository.existsByIsbn(isbn);
+    }
+
+    // El índice único es la fuente de verdad: un ISBN que el filtro no conocía termina aquí
+    private RuntimeException duplicateIsbn(DuplicateKeyException ex, String isbn) {
+        if (UniqueKeyFilter.isDuplicateKey(ex, "isbn")) {
+            uniqueKeyFilter.recordIsbn(isbn);
+            return new BookAlreadyExistsException("Ya existe un libro con el ISBN: " + isbn);
+        }
+        return ex;
+    }
+
+    private BookResponse createBookInTransaction(BookRequest request) {
+
         // Mapear BookRequest a la entidad Book
         Book book = Book.builder()
                 .title(request.getTitle())
                 .synopsis(request.getSynopsis())
-                .categories(request.getCategories())
+                .categories(canonicalCategories(request.getCategories()))
                 .isbn(request.getIsbn())
-                .author(request.getAuthor())
+                .author(canonicalAuthor(request.getAuthor()))
                 .publisher(request.getPublisher())
                 .publicationDate(request.getPublicationDate())
                 .pageCount(request.getPageCount())
@@ -69,12 +107,14 @@ public class BookService {
                 .coverImageUrl(request.getCoverImageUrl())
                 .averageRating(request.getAverageRating())
                 .ratingsCount(request.getRatingsCount())
+                .favoritesCount(0)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
 
         // Guardar el libro
         Book savedBook = bookRepository.save(book);
+        uniqueKeyFilter.recordIsbn(savedBook.getIsbn());
         log.info("Libro creado con ID: {}", savedBook.getId());
 
         // Crear o actualizar el autor con el libro nuevo
@@ -82,157 +122,268 @@ public class BookService {
 
         // Crear o actualizar géneros con el nuevo libro
         updateGenresWithNewBook(savedBook);
+        cacheInvalidator.bookListsChanged();
+        bookReadModel.refreshAfterCommit(savedBook.getId());
+
+        TransactionRunner.afterCommit(() -> {
+            leaderboardService.onBookChanged(savedBook);
+            newReleasesService.onBookChanged(savedBook);
+        });
 
         // Convertir a DTO y retornar
         return mapToBookResponse(savedBook);
     }
 
-    @Transactional(readOnly = true)
-    @Cacheable(value="books")
     public List<BookResponse> getBooks(Boolean available) {
-        List<Book> books;
-        if (available == null) {
-            books = bookRepository.findAll();
-        } else {
-            books = bookRepository.findByAvailable(available);
-        }
-        return books.stream().map(this::mapToBookResponse).collect(Collectors.toList());
+        return singleFlightCache.get(SingleFlightCache.BOOKS, "available:" + available, () -> {
+            Query query = available == null ? new Query() : Query.query(Criteria.where("available").is(available));
+            List<Book> books = mongoTemplate.find(dataAccessProfile.cachedCatalogRead(query), Book.class);
+            return books.stream().map(BookService::mapToBookResponse).collect(Collectors.toCollection(ArrayList::new));
+        });
     }
 
-    @Transactional(readOnly = true)
     @Cacheable(value="booksById")
     public BookResponse getBookById(String id) {
         return bookRepository.findById(id)
-                .map(this::mapToBookResponse)
+                .map(BookService::mapToBookResponse)
                 .orElseThrow(() -> new BookNotFoundException("Libro no encontrado con ID: " + id));
     }
 
-    @Transactional(readOnly = true)
-    public List<BookResponse> getTopRated() {
-        List<Book> books;
-        books = bookRepository.findByAverageRating(5);
-        return books.stream().map(this::mapToBookResponse).collect(Collectors.toList());
-    }
-
-    @Transactional(readOnly = true)
-    @Cacheable(value="BooksBySearch")
     public List<BookResponse> searchBooks(String query) {
-        // Búsqueda por título, autor o género
-        Query searchQuery = new Query();
-        Criteria criteria = new Criteria().orOperator(
-                Criteria.where("title").regex(query, "i"),
-                Criteria.where("author").regex(query, "i"),
-                Criteria.where("genres").in(query)
-        );
-        searchQuery.addCriteria(criteria);
-
-        return mongoTemplate.find(searchQuery, Book.class)
-                .stream()
-                .map(this::mapToBookResponse)
-                .collect(Collectors.toList());
+        return singleFlightCache.get(SingleFlightCache.BOOKS_BY_SEARCH, "q:" + query, () -> {
+            // Búsqueda por título, autor o género
+            Query searchQuery = new Query();
+            String pattern = DataAccessProfile.accentInsensitiveContains(query);
+            Criteria criteria = new Criteria().orOperator(
+                    Criteria.where("title").regex(pattern, "i"),
+                    Criteria.where("author").regex(pattern, "i"),
+                    Criteria.where("genres").in(query)
+            );
+            searchQuery.addCriteria(criteria);
+
+            return mongoTemplate.find(dataAccessProfile.cachedCatalogRead(searchQuery), Book.class)
+                    .stream()
+                    .map(BookService::mapToBookResponse)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        });
     }
 
-    @Transactional(readOnly = true)
     public List<BookResponse> findBooksByGenre(String genre) {
         return bookRepository.findByGenre(genre)
                 .stream()
-                .map(this::mapToBookResponse)
+                .map(BookService::mapToBookResponse)
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Libros de una categoría servidos desde el índice multikey de {@code libros.categories},
+     * paginados y ordenados por calificación ("rating") o fecha de publicación ("date").
+     * Solo se leen los campos del resumen del libro. El nombre escrito se resuelve primero a la
+     * categoría exacta y, si no existe, a la única que coincide sin tildes ni mayúsculas.
+     */
+    @Cacheable(value = "booksByCategory", key = "#category + ':' + #sort + ':' + #page + ':' + #size")
+    public PageResponse<BookSummary> findBooksByCategory(String category, String sort, int page, int size) {
+        Optional<Categories> genre = genreRepository.findByNameIgnoringAccents(category);
+        Criteria criteria = Criteria.where("categories").is(genre.map(Categories::getName).orElse(category));
+
+        Query query = new Query(criteria).with(PageRequest.of(page, size, categorySort(sort)));
+        query.fields().include("title", "coverImageUrl", "averageRating", "publicationDate");
+
+        List<BookSummary> books = mongoTemplate.find(dataAccessProfile.cachedCatalogRead(query), Book.class).stream()
+                .map(this::createBookSummary)
+                .collect(Collectors.toList());
+        long total = page == 0 && books.size() < size
+                ? books.size()
+                : mongoTemplate.count(dataAccessProfile.cachedCatalogRead(new Query(criteria)), Book.class);
+
+        if (total == 0 && genre.isEmpty()) {
+            throw new CategoryNotFoundException("Género no encontrado: " + category);
+        }
+        return PageResponse.of(books, page, size, total);
+    }
+
+    /**
+     * Libros publicados dentro de un rango de fechas (límites inclusivos y opcionales),
+     * ordenados del más reciente al más antiguo usando el índice de publicationDate.
+     */
+    @Cacheable(value = "booksByPublicationDate", key = "#from + ':' + #to + ':' + #page + ':' + #size")
+    public PageResponse<BookSummary> findBooksPublishedBetween(LocalDate from, LocalDate to, int page, int size) {
+        Criteria criteria = Criteria.where("publicationDate");
+        if (from != null) {
+            criteria.gte(from);
+        }
+        if (to != null) {
+            criteria.lt(to.plusDays(1));
+        }
+        if (from == null && to == null) {
+            criteria.exists(true);
+        }
+
+        Query query = new Query(criteria).with(PageRequest.of(page, size,
+                Sort.by(Sort.Direction.DESC, "publicationDate").and(Sort.by(Sort.Direction.ASC, "id"))));
+        query.fields().include("title", "coverImageUrl", "averageRating", "publicationDate");
+
+        List<BookSummary> books = mongoTemplate.find(dataAccessProfile.cachedCatalogRead(query), Book.class).stream()
+                .map(this::createBookSummary)
+                .collect(Collectors.toList());
+        long total = page == 0 && books.size() < size
+                ? books.size()
+                : mongoTemplate.count(dataAccessProfile.cachedCatalogRead(new Query(criteria)), Book.class);
+        return PageResponse.of(books, page, size, total);
+    }
+
+    private static Sort categorySort(String sort) {
+        Sort order = "date".equals(sort)
+                ? Sort.by(Sort.Direction.DESC, "publicationDate")
+                : Sort.by(Sort.Direction.DESC, "averageRating");
+        return order.and(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
     public List<BookResponse> findBooksByGenreInMemory(String genre) {
         log.info("Buscando todos los libros y filtrando en memoria por el género: {}", genre);
         return bookRepository.findAll()
                 .stream()
                 .filter(book -> book.getCategories().contains(genre))
-                .map(this::mapToBookResponse)
+                .map(BookService::mapToBookResponse)
                 .collect(Collectors.toList());
     }
 
-    @Transactional
     public void deleteBook(String id) {
-        cacheManager.getCache("books").clear();
-        cacheManager.getCache("booksById").evict(id);
-        cacheManager.getCache("BooksBySearch").evict(id);
+        transactionRunner.run("book.delete", () -> deleteBookInTransaction(id));
+    }
+
+    private void deleteBookInTransaction(String id) {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new BookNotFoundException("No se puede eliminar. Libro no encontrado con ID: " + id));
 
         // Eliminar el libro del autor
-        authorRepository.findByName(book.getAuthor()).ifPresent(author -> {
+        retryExecutor.run("author.removeBook", () -> authorRepository.findByName(book.getAuthor()).ifPresent(author -> {
             author.getBooks().removeIf(summary -> summary.getBookId().equals(id));
-            authorRepository.save(author);
-        });
+            cacheInvalidator.authorChanged(authorRepository.save(author).getId());
+        }));
 
         // Eliminar el libro de los géneros
         book.getCategories().forEach(genreName ->
-                genreRepository.findByName(genreName).ifPresent(genre -> {
+                retryExecutor.run("category.removeBook", () -> genreRepository.findByName(genreName).ifPresent(genre -> {
                     genre.getBooks().removeIf(summary -> summary.getBookId().equals(id));
-                    genreRepository.save(genre);
-                })
+                    cacheInvalidator.categoryChanged(genreRepository.save(genre).getId());
+                }))
         );
 
+        // Quitar el libro de los favoritos de los usuarios
+        mongoTemplate.updateMulti(Query.query(Criteria.where("favorites.bookId").is(id)),
+                new Update().pull("favorites", new Document("bookId", id)).inc("version", 1), Users.class);
+
         bookRepository.delete(book);
+        cacheInvalidator.bookChanged(id);
+        bookReadModel.refreshAfterCommit(id);
+        // El change stream de un borrado no trae el autor
+        TransactionRunner.afterCommit(() -> authorStatsService.authorChanged(book.getAuthor()));
+        TransactionRunner.afterCommit(() -> {
+            leaderboardService.onBookDeleted(id);
+            newReleasesService.onBookDeleted(id);
+            recommendationService.onBookDeleted(id);
+        });
         log.info("Libro eliminado con ID: {}", id);
     }
 
-    @Transactional
     public BookResponse updateBook(String id, BookRequest request) {
-        cacheManager.getCache("booksById").evict(id);
-        cacheManager.getCache("BooksBySearch").evict(id);
-        cacheManager.getCache("books").clear();
-        return bookRepository.findById(id)
-                .map(book -> {
-                    // Guardar el nombre del autor original
-                    String originalAuthorName = book.getAuthor();
-                    Set<String> originalGenres = book.getCategories();
-
-                    // Actualizar campos
-                    book.setTitle(request.getTitle());
-                    book.setSynopsis(request.getSynopsis());
-                    book.setCategories(request.getCategories());
-                    book.setAuthor(request.getAuthor());
-                    book.setPublisher(request.getPublisher());
-                    book.setPublicationDate(request.getPublicationDate());
-                    book.setPageCount(request.getPageCount());
-                    book.setLanguage(request.getLanguage());
-                    book.setCoverImageUrl(request.getCoverImageUrl());
-                    book.setUpdatedAt(LocalDateTime.now());
-
-                    // Verificar si el ISBN ha cambiado y si ya existe
-                    if (!book.getIsbn().equals(request.getIsbn()) &&
-                            bookRepository.existsByIsbn(request.getIsbn())) {
-                        throw new BookAlreadyExistsException("Ya existe un libro con el ISBN: " + request.getIsbn());
-                    }
-                    book.setIsbn(request.getIsbn());
-
-                    // Guardar el libro actualizado
-                    Book updatedBook = bookRepository.save(book);
-                    log.info("Libro actualizado con ID: {}", id);
-
-                    // Actualizar la colección de autores si el autor ha cambiado
-                    updateAuthorOnBookUpdate(originalAuthorName, updatedBook);
-
-                    // Actualizar la colección de géneros si los géneros han cambiado
-                    updateGenresOnBookUpdate(originalGenres, updatedBook);
-
-                    return mapToBookResponse(updatedBook);
-                })
-                .orElseThrow(() -> new BookNotFoundException("No se puede actualizar. Libro no encontrado con ID: " + id));
+        try {
+            return transactionRunner.execute("book.update", () -> updateBookInTransaction(id, request));
+        } catch (DuplicateKeyException ex) {
+            throw duplicateIsbn(ex, request.getIsbn());
+        }
     }
 
-    private void updateAuthorWithNewBook(Book book) {
-        Author author = authorRepository.findByName(book.getAuthor())
-                .orElseGet(() -> Author.builder().name(book.getAuthor()).build());
+    private BookResponse updateBookInTransaction(String id, BookRequest request) {
+        // La lectura y el guardado se reintentan juntos si otra operación modificó el libro
+        BookUpdate update = retryExecutor.execute("book.update", () -> {
+            Book book = bookRepository.findById(id)
+                    .orElseThrow(() -> new BookNotFoundException("No se puede actualizar. Libro no encontrado con ID: " + id));
+
+            // Guardar el nombre del autor original
+            String originalAuthorName = book.getAuthor();
+            Set<String> originalGenres = book.getCategories();
+
+            // Actualizar campos
+            book.setTitle(request.getTitle());
+            book.setSynopsis(request.getSynopsis());
+            book.setCategories(canonicalCategories(request.getCategories()));
+            book.setAuthor(canonicalAuthor(request.getAuthor()));
+            book.setPublisher(request.getPublisher());
+            book.setPublicationDate(request.getPublicationDate());
+            book.setPageCount(request.getPageCount());
+            book.setLanguage(request.getLanguage());
+            book.setCoverImageUrl(request.getCoverImageUrl());
+            book.setUpdatedAt(LocalDateTime.now());
+
+            // Verificar si el ISBN ha cambiado y si ya existe
+            if (!book.getIsbn().equals(request.getIsbn()) && isbnExists(request.getIsbn())) {
+                throw new BookAlreadyExistsException("Ya existe un libro con el ISBN: " + request.getIsbn());
+            }
+            book.setIsbn(request.getIsbn());
+            uniqueKeyFilter.recordIsbn(request.getIsbn());
+
+            // Guardar el libro actualizado
+            return new BookUpdate(bookRepository.save(book), originalAuthorName, originalGenres);
+        });
+
+        Book updatedBook = update.book();
+        log.info("Libro actualizado con ID: {}", id);
+
+        // Actualizar la colección de autores si el autor ha cambiado
+        updateAuthorOnBookUpdate(update.originalAuthor(), updatedBook);
+
+        // Actualizar la colección de géneros si los géneros han cambiado
+        updateGenresOnBookUpdate(update.originalGenres(), updatedBook);
+        cacheInvalidator.bookChanged(id);
+        bookReadModel.refreshAfterCommit(id);
+        if (!update.originalAuthor().equals(updatedBook.getAuthor())) {
+            TransactionRunner.afterCommit(() -> authorStatsService.authorChanged(update.originalAuthor()));
+        }
+
+        TransactionRunner.afterCommit(() -> {
+            leaderboardService.onBookChanged(updatedBook);
+            newReleasesService.onBookChanged(updatedBook);
+        });
+
+        return mapToBookResponse(updatedBook);
+    }
 
+    private record BookUpdate(Book book, String originalAuthor, Set<String> originalGenres) {
+    }
+
+    /**
+     * Nombre del autor tal como ya existe si solo difiere en tildes o mayúsculas del escrito, para
+     * no crear un autor duplicado. Con el nombre guardado, el resto de búsquedas son exactas.
+     */
+    private String canonicalAuthor(String name) {
+        return name == null ? null : authorRepository.findByNameIgnoringAccents(name).map(Author::getName).orElse(name);
+    }
+
+    private Set<String> canonicalCategories(Set<String> names) {
+        if (names == null) {
+            return null;
+        }
+        return names.stream()
+                .map(name -> genreRepository.findByNameIgnoringAccents(name).map(Categories::getName).orElse(name))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private void updateAuthorWithNewBook(Book book) {
         BookSummary summary = createBookSummary(book);
 
-        // Evitar duplicados si el libro ya está en la lista
-        author.getBooks().removeIf(bookSummary -> bookSummary.getBookId().equals(book.getId()));
-        author.getBooks().add(summary);
+        retryExecutor.run("author.addBook", () -> {
+            Author author = authorRepository.findByName(book.getAuthor())
+                    .orElseGet(() -> Author.builder().name(book.getAuthor()).build());
+
+            // Evitar duplicados si el libro ya está en la lista
+            author.getBooks().removeIf(bookSummary -> bookSummary.getBookId().equals(book.getId()));
+            author.getBooks().add(summary);
 
-        authorRepository.save(author);
-        log.info("Autor '{}' actualizado con el libro '{}'", author.getName(), book.getTitle());
+            cacheInvalidator.authorChanged(authorRepository.save(author).getId());
+            log.info("Autor '{}' actualizado con el libro '{}'", author.getName(), book.getTitle());
+        });
     }
 
     private void updateAuthorOnBookUpdate(String originalAuthorName, Book updatedBook) {
@@ -244,17 +395,17 @@ public class BookService {
         }
 
         // Eliminar el libro del autor original
-        authorRepository.findByName(originalAuthorName).ifPresent(author -> {
+        retryExecutor.run("author.removeBook", () -> authorRepository.findByName(originalAuthorName).ifPresent(author -> {
             author.getBooks().removeIf(summary -> summary.getBookId().equals(updatedBook.getId()));
-            authorRepository.save(author);
+            cacheInvalidator.authorChanged(authorRepository.save(author).getId());
             log.info("Libro '{}' eliminado del autor '{}'", updatedBook.getTitle(), originalAuthorName);
-        });
+        }));
 
         // Agregar el libro al nuevo autor
         updateAuthorWithNewBook(updatedBook);
     }
 
-    private BookResponse mapToBookResponse(Book book) {
+    static BookResponse mapToBookResponse(Book book) {
         return BookResponse.builder()
                 .id(book.getId())
                 .title(book.getTitle())
@@ -269,6 +420,7 @@ public class BookService {
                 .coverImageUrl(book.getCoverImageUrl())
                 .averageRating(book.getAverageRating())
                 .ratingsCount(book.getRatingsCount())
+                .favoritesCount(book.getFavoritesCount() != null ? book.getFavoritesCount() : 0)
                 .createdAt(book.getCreatedAt())
                 .updatedAt(book.getUpdatedAt())
                 .available(book.getAvailable())
@@ -289,15 +441,15 @@ public class BookService {
 
     private void updateGenresWithNewBook(Book book) {
         BookSummary summary = createBookSummary(book);
-        book.getCategories().forEach(genreName -> {
+        book.getCategories().forEach(genreName -> retryExecutor.run("category.addBook", () -> {
             Categories genre = genreRepository.findByName(genreName)
                     .orElseGet(() -> Categories.builder().name(genreName).build());
 
             genre.getBooks().removeIf(bookSummary -> bookSummary.getBookId().equals(book.getId()));
             genre.getBooks().add(summary);
-            genreRepository.save(genre);
+            cacheInvalidator.categoryChanged(genreRepository.save(genre).getId());
             log.info("Género '{}' actualizado con el libro '{}'", genreName, book.getTitle());
-        });
+        }));
     }
 
     private void updateGenresOnBookUpdate(Set<String> originalGenres, Book updatedBook) {
@@ -310,11 +462,11 @@ public class BookService {
         originalGenreSet.stream()
                 .filter(genreName -> !newGenreSet.contains(genreName))
                 .forEach(genreName ->
-                        genreRepository.findByName(genreName).ifPresent(genre -> {
+                        retryExecutor.run("category.removeBook", () -> genreRepository.findByName(genreName).ifPresent(genre -> {
                             genre.getBooks().removeIf(summary -> summary.getBookId().equals(updatedBook.getId()));
-                            genreRepository.save(genre);
+                            cacheInvalidator.categoryChanged(genreRepository.save(genre).getId());
                             log.info("Libro '{}' eliminado del género '{}'", updatedBook.getTitle(), genreName);
-                        })
+                        }))
                 );
 
         // Géneros añadidos: están en el nuevo pero no en el original
@@ -324,83 +476,130 @@ public class BookService {
     }
 
     private void updateGenreWithBook(String genreName, Book book) {
-        Categories genre = genreRepository.findByName(genreName)
-                .orElseGet(() -> Categories.builder().name(genreName).build());
-
         BookSummary summary = createBookSummary(book);
-        genre.getBooks().removeIf(s -> s.getBookId().equals(book.getId())); // Evitar duplicados
-        genre.getBooks().add(summary);
-        genreRepository.save(genre);
+
+        retryExecutor.run("category.addBook", () -> {
+            Categories genre = genreRepository.findByName(genreName)
+                    .orElseGet(() -> Categories.builder().name(genreName).build());
+
+            genre.getBooks().removeIf(s -> s.getBookId().equals(book.getId())); // Evitar duplicados
+            genre.getBooks().add(summary);
+            cacheInvalidator.categoryChanged(genreRepository.save(genre).getId());
+        });
     }
     private BookSummary createBookSummary(Book book) {
         return BookSummary.builder()
                 .bookId(book.getId())
                 .title(book.getTitle())
                 .coverImageUrl(book.getCoverImageUrl())
+                .averageRating(book.getAverageRating())
+                .publicationDate(book.getPublicationDate())
                 .build();
     }
 
-    @Transactional
+    /**
+     * Recalcula el promedio del libro a partir de sus reseñas. Se trabaja sobre una copia
+     * recién leída (con reintento ante conflictos de versión) y el resultado se copia al
+     * libro recibido para que el llamador vea los valores actualizados. Se une a la transacción
+     * del llamador (creación o edición de reseñas).
+     */
     public void updateBookAverageRating(@NotNull Book book) {
 
+        Book saved = retryExecutor.execute("book.averageRating", () -> {
+            Book current = bookRepository.findById(book.getId())
+                    .orElseThrow(() -> new BookNotFoundException("Libro no encontrado con ID: " + book.getId()));
+
+            // Obtener todas las reseñas del libro desde la colección Review
+            List<Review> reviews = reviewRepository.findByBook_BookId(current.getId());
+
+            if (reviews == null || reviews.isEmpty()) {
+                current.setAverageRating(0.0);
+                current.setRatingsCount(0);
+            } else {
+                double sum = reviews.stream()
+                        .mapToInt(com.example.demo.controllers.domain.entity.Review::getRating)
+                        .sum();
+                double average = sum / reviews.size();
+                current.setAverageRating(average);
+                current.setRatingsCount(reviews.size());
+            }
+
+            current.setUpdatedAt(LocalDateTime.now());
+            return bookRepository.save(current);
+        });
 
-
-        // Obtener todas las reseñas del libro desde la colección Review
-        List<Review> reviews = reviewRepository.findByBook_BookId(book.getId());
-
-        if (reviews == null || reviews.isEmpty()) {
-            book.setAverageRating(0.0);
-            book.setRatingsCount(0);
-        } else {
-            double sum = reviews.stream()
-                    .mapToInt(com.example.demo.controllers.domain.entity.Review::getRating)
-                    .sum();
-            double average = sum / reviews.size();
-            book.setAverageRating(average);
-            book.setRatingsCount(reviews.size());
-        }
-
-        book.setUpdatedAt(LocalDateTime.now());
-
-        bookRepository.save(book);
+        book.setAverageRating(saved.getAverageRating());
+        book.setRatingsCount(saved.getRatingsCount());
+        book.setUpdatedAt(saved.getUpdatedAt());
+        book.setVersion(saved.getVersion());
+        cacheInvalidator.bookChanged(book.getId());
         log.info("Promedio de reseñas actualizado para el libro con ID: {}. Promedio: {}, Total: {}",
                 book.getId(), book.getAverageRating(), book.getRatingsCount());
 
         updateBookSummaryInAuthorAndGenre(book);
+        bookReadModel.refreshAfterCommit(book.getId());
+        TransactionRunner.afterCommit(() -> {
+            leaderboardService.onBookChanged(book);
+            newReleasesService.onBookChanged(book);
+        });
     }
     private void updateBookSummaryInAuthorAndGenre(Book book) {
         // Actualizar Author
-        authorRepository.findByName(book.getAuthor()).ifPresent(author -> {
+        retryExecutor.run("author.bookRating", () -> authorRepository.findByName(book.getAuthor()).ifPresent(author -> {
             author.getBooks().stream()
                     .filter(summary -> summary.getBookId().equals(book.getId()))
                     .forEach(summary -> summary.setAverageRating(book.getAverageRating())
                     );
-            authorRepository.save(author);
-        });
+            cacheInvalidator.authorChanged(authorRepository.save(author).getId());
+        }));
 
         // Actualizar Genre
         book.getCategories().forEach(genreName ->
-                genreRepository.findByName(genreName).ifPresent(genre -> {
+                retryExecutor.run("category.bookRating", () -> genreRepository.findByName(genreName).ifPresent(genre -> {
                     genre.getBooks().stream()
                             .filter(summary -> summary.getBookId().equals(book.getId()))
                             .forEach(summary -> summary.setAverageRating(book.getAverageRating()));
-                    genreRepository.save(genre);
-                })
+                    cacheInvalidator.categoryChanged(genreRepository.save(genre).getId());
+                }))
         );
     }
 
-    // Usuarios que tienen el libro como favoritos
-    public List<UserSummary> getUsersWhoFavoritedBook(String bookId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BookNotFoundException("Libro no encontrado con ID: " + bookId));
-        return book.getFavoredByUsers();
+    // Usuarios que tienen el libro como favoritos (paginado sobre el índice favorites.bookId de usuarios)
+    public PageResponse<UserSummary> getUsersWhoFavoritedBook(String bookId, int page, int size) {
+        Query bookQuery = Query.query(Criteria.where("id").is(bookId));
+        bookQuery.fields().include("favoritesCount");
+        Book book = mongoTemplate.findOne(bookQuery, Book.class);
+        if (book == null) {
+            throw new BookNotFoundException("Libro no encontrado con ID: " + bookId);
+        }
+
+        Query usersQuery = Query.query(Criteria.where("favorites.bookId").is(bookId))
+                .with(Sort.by("id"))
+                .skip((long) page * size)
+                .limit(size);
+        usersQuery.fields().include("fullName", "email", "cardNum");
+
+        List<UserSummary> users = mongoTemplate.find(dataAccessProfile.budgeted(usersQuery), Users.class).stream()
+                .map(user -> UserSummary.builder()
+                        .userId(user.getId())
+                        .fullName(user.getFullName())
+                        .email(user.getEmail())
+                        .cardNum(user.getCardNum())
+                        .build())
+                .toList();
+        long total = book.getFavoritesCount() != null ? book.getFavoritesCount() : 0;
+        return PageResponse.of(users, page, size, total);
     }
 
     public Book deleteReviewFromBook(Book book, Review review){
         if(book.getId().equals(review.getBook().getBookId())){
-            book.setUpdatedAt(LocalDateTime.now());
-            book.getReviews().removeIf(r -> r.getId().equals(review.getId()));
-            return bookRepository.save(book);
+            return retryExecutor.execute("book.deleteReview", () -> {
+                Book current = bookRepository.findById(book.getId())
+                        .orElseThrow(() -> new BookNotFoundException("Libro no encontrado con ID: " + book.getId()));
+                current.setUpdatedAt(LocalDateTime.now());
+                current.getReviews().removeIf(r -> r.getId().equals(review.getId()));
+                return bookRepository.save(current);
+            });
         } else {
             throw new BookNotFoundException("El libro con ID: " + book.getId() + " no contiene la reseña con ID: " + review.getId());
         }
@@ -0,0 +1,208 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.HotCacheKey;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Precalentamiento de cachés tras un despliegue.
+ *
+ * Durante la operación normal cada lectura por ID o listado se cuenta en un sketch de frecuencias
+ * ({@link AccessFrequencySketch}) y periódicamente las K claves más consultadas se guardan en
+ * "claves_calientes". Al arrancar, este runner vuelve a ejecutar esas lecturas en paralelo para
+ * poblar las cachés. Los ApplicationRunner terminan antes de que la aplicación pase a
+ * ACCEPTING_TRAFFIC, por lo que la sonda de readiness no se cumple hasta acabar (o agotar el
+ * presupuesto de tiempo).
+ */
+@Slf4j
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CacheWarmupService implements ApplicationRunner {
+
+    public enum Target {
+        BOOKS, BOOK_BY_ID, AUTHORS, CATEGORIES
+    }
+
+    private static final String SEPARATOR = "|";
+
+    private final MongoTemplate mongoTemplate;
+    private final BookService bookService;
+    private final AuthorService authorService;
+    private final CategoryService categoryService;
+    private final BookReadModelService bookReadModel;
+    private final ConditionalRequestService conditionalRequestService;
+    private final AccessFrequencySketch sketch;
+
+    @Value("${cache-warmup.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${cache-warmup.concurrency:4}")
+    private int concurrency = 4;
+
+    @Value("${cache-warmup.time-budget:PT30S}")
+    private Duration timeBudget = Duration.ofSeconds(30);
+
+    @Value("${cache-warmup.persist-interval-ms:300000}")
+    private long persistIntervalMs = 300000;
+
+    private final int maxKeys;
+
+    public CacheWarmupService(MongoTemplate mongoTemplate, BookService bookService, AuthorService authorService,
+                              CategoryService categoryService, BookReadModelService bookReadModel,
+                              ConditionalRequestService conditionalRequestService,
+                              @Value("${cache-warmup.sketch-width:4096}") int sketchWidth,
+                              @Value("${cache-warmup.max-keys:200}") int topK) {
+        this.mongoTemplate = mongoTemplate;
+        this.bookService = bookService;
+        this.authorService = authorService;
+        this.categoryService = categoryService;
+        this.bookReadModel = bookReadModel;
+        this.conditionalRequestService = conditionalRequestService;
+        this.maxKeys = topK;
+        this.sketch = new AccessFrequencySketch(sketchWidth, topK);
+    }
+
+    public void recordAccess(Target target, String key) {
+        sketch.increment(target.name() + SEPARATOR + (key != null ? key : ""));
+    }
+
+    /**
+     * Guarda las claves más frecuentes y envejece el sketch. El puntaje se reemplaza (no se toma el
+     * máximo) para que refleje la frecuencia actual; las claves que salen del top conservan su último
+     * puntaje, que al leerlas se reduce a la mitad por cada intervalo sin guardarse, y expiran por TTL.
+     */
+    @Scheduled(fixedDelayString = "${cache-warmup.persist-interval-ms:300000}")
+    public void persistHotKeys() {
+        List<Map.Entry<String, Integer>> top = sketch.top();
+        if (top.isEmpty()) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HotCacheKey.class);
+            for (Map.Entry<String, Integer> entry : top) {
+                String[] parts = entry.getKey().split("\\|", 2);
+                bulk.upsert(Query.query(Criteria.where("id").is(entry.getKey())), new Update()
+                        .setOnInsert("target", parts[0])
+                        .setOnInsert("key", parts[1])
+                        .set("score", (long) entry.getValue())
+                        .set("updatedAt", now));
+            }
+            bulk.execute();
+            sketch.halve();
+            log.debug("Guardadas {} claves de caché frecuentes", top.size());
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron guardar las claves de caché frecuentes", ex);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        List<Runnable> tasks = new ArrayList<>();
+        // Los listados sin parámetros siempre se precalientan, aunque aún no haya estadísticas
+        tasks.add(() -> bookService.getBooks(null));
+        tasks.add(authorService::getAllAuthors);
+        tasks.add(categoryService::getAllCategories);
+        for (HotCacheKey hotKey : loadHotKeys()) {
+            Runnable task = toTask(hotKey);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        AtomicInteger warmed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, concurrency));
+        try {
+            for (Runnable task : tasks) {
+                pool.execute(() -> {
+                    try {
+                        task.run();
+                        warmed.incrementAndGet();
+                    } catch (RuntimeException ex) {
+                        // Un libro borrado u otro error puntual no debe impedir el arranque
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+            pool.shutdown();
+            if (!pool.awaitTermination(timeBudget.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Precalentamiento de cachés interrumpido al agotar el presupuesto de {}", timeBudget);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        log.info("Cachés precalentadas: {} lecturas, {} fallidas, {} pendientes, {} ms",
+                warmed.get(), failed.get(), tasks.size() - warmed.get() - failed.get(),
+                System.currentTimeMillis() - start);
+    }
+
+    private List<HotCacheKey> loadHotKeys() {
+        try {
+            // Mismo envejecimiento que el sketch: la mitad por cada intervalo de guardado transcurrido
+            Document age = new Document("$divide", List.of(
+                    new Document("$subtract", List.of(new Date(), "$updatedAt")), persistIntervalMs));
+            Aggregation aggregation = Aggregation.newAggregation(
+                    context -> new Document("$addFields", new Document("decayedScore",
+                            new Document("$multiply", List.of("$score", new Document("$pow", List.of(0.5, age)))))),
+                    context -> new Document("$sort", new Document("decayedScore", -1)),
+                    Aggregation.limit(maxKeys));
+            return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(HotCacheKey.class),
+                    HotCacheKey.class).getMappedResults();
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron leer las claves de caché frecuentes", ex);
+            return List.of();
+        }
+    }
+
+    private Runnable toTask(HotCacheKey hotKey) {
+        Target target;
+        try {
+            target = Target.valueOf(hotKey.getTarget());
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            return null;
+        }
+        String key = hotKey.getKey();
+        return switch (target) {
+            // Respuesta gzip de GET /books/{id} para el ETag actual, con la misma clave que el controlador
+            case BOOK_BY_ID -> () -> conditionalRequestService.warm("book", Book.class, Criteria.where("id").is(key),
+                    version -> bookReadModel.getBook(key, version));
+            case BOOKS -> () -> bookService.getBooks(key == null || key.isEmpty() || "null".equals(key)
+                    ? null : Boolean.valueOf(key));
+            // Los listados sin parámetros ya están en la lista base
+            case AUTHORS, CATEGORIES -> null;
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.application;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Punto único de invalidación de las cachés del catálogo (libros, autores y géneros).
+ *
+ * Se invoca después de escribir el documento, no antes: si se invalidara antes, una lectura
+ * concurrente podría volver a guardar en caché la versión anterior. Así la respuesta cacheada
+ * nunca queda por detrás de la versión del documento de la que se derivan los ETag.
+ * Dentro de una transacción la invalidación espera al commit, por la misma razón y porque la
+ * transacción puede repetirse o abortarse.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheInvalidator {
+
+    private static final List<String> BOOK_LISTS = List.of(
+            "booksByCategory", "bookFacets", "booksByPublicationDate");
+
+    private final CacheManager cacheManager;
+    private final SingleFlightCache singleFlightCache;
+
+    /**
+     * Cambio que afecta al detalle del libro y a los listados (disponibilidad, título, promedio...).
+     */
+    public void bookChanged(String bookId) {
+        bookDetailChanged(bookId);
+        bookListsChanged();
+    }
+
+    /**
+     * Cambio que solo afecta al detalle del libro (contador de favoritos, préstamos embebidos).
+     */
+    public void bookDetailChanged(String bookId) {
+        evict("booksById", bookId);
+    }
+
+    /**
+     * Libro nuevo: solo los listados pueden estar desactualizados. Los listados completos y las
+     * búsquedas se marcan como vencidos en lugar de vaciarse, para que la siguiente ráfaga de
+     * lecturas siga recibiendo el valor anterior mientras se recalcula una sola vez.
+     */
+    public void bookListsChanged() {
+        TransactionRunner.afterCommit(() -> {
+            singleFlightCache.markStale(SingleFlightCache.BOOKS);
+            singleFlightCache.markStale(SingleFlightCache.BOOKS_BY_SEARCH);
+        });
+        BOOK_LISTS.forEach(this::clear);
+    }
+
+    public void authorChanged(String authorId) {
+        evict("authorById", authorId);
+        clear("authors");
+    }
+
+    public void categoryChanged(String categoryId) {
+        evict("categoryById", categoryId);
+        clear("categories");
+    }
+
+    public void loanChanged(String loanId) {
+        evict("loansById", loanId);
+    }
+
+    /**
+     * Vacía todas las cachés del catálogo, para cuando no se sabe qué cambió (por ejemplo, si el
+     * change stream perdió eventos).
+     */
+    public void allChanged() {
+        bookListsChanged();
+        List.of("booksById", "authorById", "authors", "categoryById", "categories", "loansById")
+                .forEach(this::clear);
+    }
+
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            TransactionRunner.afterCommit(() -> cache.evict(key));
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            TransactionRunner.afterCommit(cache::clear);
+        }
+    }
+}
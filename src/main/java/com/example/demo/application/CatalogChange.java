@@ -0,0 +1,16 @@
+package com.example.demo.application;
+
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * Cambio de un documento del catálogo recibido por change stream.
+ *
+ * @param collection   colección de origen
+ * @param operation    insert, update, replace o delete
+ * @param id           ID del documento modificado
+ * @param listsChanged si el cambio afecta también a los listados (para libros)
+ * @param bookId       libro relacionado, cuando el documento es una reseña o un préstamo
+ */
+public record CatalogChange(String collection, OperationType operation, String id, boolean listsChanged,
+                            String bookId) {
+}
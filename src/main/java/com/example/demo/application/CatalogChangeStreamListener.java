@@ -0,0 +1,417 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.ChangeStreamToken;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Invalida cachés y actualiza modelos de lectura a partir de los change streams de libros,
+ * escritores, categorías, préstamos y reseñas, sin importar qué código (o qué instancia) escribió.
+ * La invalidación explícita de los servicios se mantiene para que cada instancia lea sus propias
+ * escrituras de inmediato; el change stream cubre el resto.
+ *
+ * - Contrapresión: el hilo de cada cursor deja los cambios en una cola acotada y se bloquea cuando
+ *   está llena, de modo que no se leen más eventos de los que se pueden procesar.
+ * - Coalescencia: un único hilo vacía la cola por lotes y aplica una sola vez los cambios repetidos.
+ * - Reanudación: tras procesar un lote se guarda el último resume token de cada colección en
+ *   "tokens_change_stream". Un reinicio puede repetir eventos pero no perderlos; las
+ *   invalidaciones y proyecciones son idempotentes. Si alguna invalidación falla (Redis o Mongo
+ *   caídos) el lote entero se reintenta y el token no avanza hasta que se aplique completo.
+ * - Si el oplog ya no contiene el token guardado, los eventos intermedios se pierden: se vacían
+ *   todas las cachés del catálogo y se continúa desde ahora.
+ *
+ * Métricas: change_streams.events{collection}, change_streams.queue.size, change_streams.lag,
+ * change_streams.errors.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "change-streams.enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogChangeStreamListener implements SmartLifecycle {
+
+    static final String BOOKS = "libros";
+    static final String AUTHORS = "escritores";
+    static final String CATEGORIES = "categorias";
+    static final String LOANS = "prestamos";
+    static final String REVIEWS = "Reseñas";
+
+    private static final List<String> COLLECTIONS = List.of(BOOKS, AUTHORS, CATEGORIES, LOANS, REVIEWS);
+
+    // Campos del libro que solo se muestran en el detalle (mismo criterio que los servicios)
+    private static final Set<String> BOOK_DETAIL_FIELDS = Set.of("favoritesCount", "loans", "version", "updatedAt");
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogCacheInvalidator cacheInvalidator;
+    private final ObjectProvider<CatalogProjection> projections;
+    private final MeterRegistry meterRegistry;
+    private final Timer lag;
+    private final Counter errors;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, BsonValue> processedTokens = new ConcurrentHashMap<>();
+    private final Map<String, BsonValue> persistedTokens = new ConcurrentHashMap<>();
+
+    @Value("${change-streams.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${change-streams.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${change-streams.token-persist-interval-ms:1000}")
+    private long tokenPersistIntervalMs = 1000;
+
+    @Value("${change-streams.max-await-time:PT1S}")
+    private Duration maxAwaitTime = Duration.ofSeconds(1);
+
+    @Value("${change-streams.retry-backoff-ms:1000}")
+    private long retryBackoffMs = 1000;
+
+    private BlockingQueue<PendingChange> queue;
+    private MessageListenerContainer container;
+    private Thread worker;
+    private volatile boolean running;
+    private volatile long lastPersist;
+
+    public CatalogChangeStreamListener(MongoTemplate mongoTemplate, CatalogCacheInvalidator cacheInvalidator,
+                                       ObjectProvider<CatalogProjection> projections, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheInvalidator = cacheInvalidator;
+        this.projections = projections;
+        this.meterRegistry = meterRegistry;
+        this.lag = Timer.builder("change_streams.lag")
+                .description("Tiempo entre la escritura en MongoDB y la aplicación del cambio")
+                .register(meterRegistry);
+        this.errors = Counter.builder("change_streams.errors").register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        Gauge.builder("change_streams.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+
+        running = true;
+        worker = new Thread(this::drainLoop, "change-stream-worker");
+        worker.setDaemon(true);
+        worker.start();
+
+        container = new DefaultMessageListenerContainer(mongoTemplate, new SimpleAsyncTaskExecutor("change-stream-"));
+        container.start();
+        COLLECTIONS.forEach(this::subscribe);
+        log.info("Change streams activos sobre {}", COLLECTIONS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (container != null) {
+            container.stop();
+        }
+        subscriptions.clear();
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        persistTokens();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Vuelve a suscribir los cursores que se cerraron por un error (elección de primario, red),
+     * desde el último token guardado.
+     */
+    @Scheduled(fixedDelayString = "${change-streams.health-check-interval-ms:10000}")
+    public void resubscribeInactive() {
+        if (!running) {
+            return;
+        }
+        for (String collection : COLLECTIONS) {
+            Subscription subscription = subscriptions.get(collection);
+            if (subscription == null || !subscription.isActive()) {
+                log.warn("Change stream de '{}' inactivo, se vuelve a suscribir", collection);
+                if (subscription != null) {
+                    container.remove(subscription);
+                }
+                persistTokens();
+                subscribe(collection);
+            }
+        }
+    }
+
+    private void subscribe(String collection) {
+        ChangeStreamRequest.ChangeStreamRequestBuilder<Document> request = ChangeStreamRequest.builder()
+                .collection(collection)
+                .filter(new Document("$match", new Document("operationType",
+                        new Document("$in", List.of("insert", "update", "replace", "delete")))))
+                .maxAwaitTime(maxAwaitTime)
+                .publishTo(this::onMessage);
+        if (REVIEWS.equals(collection)) {
+            // La reseña solo se relaciona con su libro a través del documento completo
+            request.fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        }
+        BsonValue token = loadToken(collection);
+        if (token != null) {
+            request.resumeAfter(token);
+        }
+        subscriptions.put(collection, container.register(request.build(), Document.class,
+                error -> onError(collection, error)));
+    }
+
+    private void onMessage(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        if (event == null || event.getDocumentKey() == null) {
+            return;
+        }
+        String collection = event.getNamespace() != null
+                ? event.getNamespace().getCollectionName() : message.getProperties().getCollectionName();
+        CatalogChange change = new CatalogChange(collection, event.getOperationType(),
+                idOf(event.getDocumentKey().get("_id")), listsChanged(collection, event), relatedBookId(event));
+        Instant writtenAt = event.getWallTime() != null
+                ? Instant.ofEpochMilli(event.getWallTime().getValue()) : null;
+
+        meterRegistry.counter("change_streams.events", "collection", collection).increment();
+        try {
+            // Si la cola está llena el cursor espera: contrapresión hacia el change stream
+            queue.put(new PendingChange(change, event.getResumeToken(), writtenAt));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingChange> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    PendingChange first = queue.poll(tokenPersistIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - 1);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    if (apply(batch)) {
+                        batch.clear();
+                    } else {
+                        // El lote se conserva y se reintenta; mientras tanto la cola frena a los cursores
+                        Thread.sleep(retryBackoffMs);
+                    }
+                }
+                if (System.currentTimeMillis() - lastPersist >= tokenPersistIntervalMs) {
+                    persistTokens();
+                }
+            } catch (InterruptedException ex) {
+                if (!running) {
+                    break;
+                }
+            } catch (RuntimeException ex) {
+                errors.increment();
+                log.warn("Error al aplicar cambios del change stream", ex);
+            }
+        }
+    }
+
+    /**
+     * Aplica el lote y avanza los tokens solo si todas las invalidaciones se aplicaron.
+     *
+     * @return false si hay que reintentar el lote
+     */
+    private boolean apply(List<PendingChange> batch) {
+        Set<CatalogChange> changes = new LinkedHashSet<>();
+        Map<String, BsonValue> lastTokens = new HashMap<>();
+        for (PendingChange pending : batch) {
+            changes.add(pending.change());
+            lastTokens.put(pending.change().collection(), pending.resumeToken());
+        }
+
+        boolean invalidated = true;
+        for (CatalogChange change : changes) {
+            try {
+                invalidate(change);
+            } catch (RuntimeException ex) {
+                errors.increment();
+                invalidated = false;
+                log.warn("No se pudo invalidar la caché para el cambio {}; se reintentará el lote", change, ex);
+            }
+            projections.orderedStream().forEach(projection -> {
+                try {
+                    projection.onChange(change);
+                } catch (RuntimeException ex) {
+                    errors.increment();
+                    log.warn("La proyección {} falló con el cambio {}", projection.getClass().getSimpleName(), change, ex);
+                }
+            });
+        }
+
+        if (!invalidated) {
+            return false;
+        }
+        Instant now = Instant.now();
+        batch.stream().map(PendingChange::writtenAt).filter(Objects::nonNull)
+                .forEach(writtenAt -> lag.record(Duration.between(writtenAt, now)));
+        processedTokens.putAll(lastTokens);
+        return true;
+    }
+
+    private void invalidate(CatalogChange change) {
+        switch (change.collection()) {
+            case BOOKS -> {
+                if (change.operation() == OperationType.INSERT) {
+                    cacheInvalidator.bookListsChanged();
+                } else if (change.listsChanged()) {
+                    cacheInvalidator.bookChanged(change.id());
+                } else {
+                    cacheInvalidator.bookDetailChanged(change.id());
+                }
+            }
+            case AUTHORS -> cacheInvalidator.authorChanged(change.id());
+            case CATEGORIES -> cacheInvalidator.categoryChanged(change.id());
+            case LOANS -> cacheInvalidator.loanChanged(change.id());
+            case REVIEWS -> {
+                if (change.bookId() != null) {
+                    cacheInvalidator.bookDetailChanged(change.bookId());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static boolean listsChanged(String collection, ChangeStreamDocument<Document> event) {
+        if (!BOOKS.equals(collection) || event.getOperationType() != OperationType.UPDATE) {
+            return true;
+        }
+        UpdateDescription description = event.getUpdateDescription();
+        if (description == null) {
+            return true;
+        }
+        Stream<String> fields = Stream.concat(
+                description.getUpdatedFields() != null ? description.getUpdatedFields().keySet().stream() : Stream.empty(),
+                description.getRemovedFields() != null ? description.getRemovedFields().stream() : Stream.empty());
+        // "loans.3.status" -> "loans"
+        return fields.map(field -> field.split("\\.", 2)[0]).anyMatch(field -> !BOOK_DETAIL_FIELDS.contains(field));
+    }
+
+    private static String relatedBookId(ChangeStreamDocument<Document> event) {
+        Document fullDocument = event.getFullDocument();
+        if (fullDocument == null || !(fullDocument.get("book") instanceof Document book)) {
+            return null;
+        }
+        Object bookId = book.get("bookId");
+        return bookId != null ? bookId.toString() : null;
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private void onError(String collection, Throwable error) {
+        errors.increment();
+        if (error instanceof MongoException mongo && mongo.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+            // El oplog ya no contiene el token guardado: se continúa desde ahora
+            log.warn("El resume token de '{}' ya no está en el oplog; se descarta y se vacían las cachés", collection);
+            processedTokens.remove(collection);
+            persistedTokens.remove(collection);
+            mongoTemplate.remove(Query.query(Criteria.where("id").is(collection)), ChangeStreamToken.class);
+            // Los cambios del intervalo perdido no llegarán nunca
+            try {
+                cacheInvalidator.allChanged();
+            } catch (RuntimeException ex) {
+                log.warn("No se pudieron vaciar las cachés del catálogo tras perder eventos de '{}'", collection, ex);
+            }
+            return;
+        }
+        log.warn("Error en el change stream de '{}'", collection, error);
+    }
+
+    private BsonValue loadToken(String collection) {
+        BsonValue processed = processedTokens.get(collection);
+        if (processed != null) {
+            return processed;
+        }
+        try {
+            ChangeStreamToken stored = mongoTemplate.findById(collection, ChangeStreamToken.class);
+            return stored != null && stored.getToken() != null ? BsonDocument.parse(stored.getToken()) : null;
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo leer el resume token de '{}'", collection, ex);
+            return null;
+        }
+    }
+
+    private void persistTokens() {
+        lastPersist = System.currentTimeMillis();
+        Instant now = Instant.now();
+        processedTokens.forEach((collection, token) -> {
+            if (token.equals(persistedTokens.get(collection))) {
+                return;
+            }
+            try {
+                mongoTemplate.upsert(Query.query(Criteria.where("id").is(collection)),
+                        new Update().set("token", token.asDocument().toJson()).set("updatedAt", now),
+                        ChangeStreamToken.class);
+                persistedTokens.put(collection, token);
+            } catch (RuntimeException ex) {
+                log.warn("No se pudo guardar el resume token de '{}'", collection, ex);
+            }
+        });
+    }
+
+    private record PendingChange(CatalogChange change, BsonValue resumeToken, Instant writtenAt) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.application;
+
+/**
+ * Modelo de lectura alimentado por {@link CatalogChangeStreamListener}. Cada cambio puede
+ * llegar más de una vez (reanudación desde el último token guardado), así que la proyección
+ * debe ser idempotente: normalmente vuelve a leer el documento de origen y lo reemplaza.
+ */
+public interface CatalogProjection {
+
+    void onChange(CatalogChange change);
+}
@@ -10,10 +10,8 @@ import com.example.demo.controllers.response.AuthorResponse;
 import com.example.demo.controllers.response.BookResponse;
 import com.example.demo.controllers.response.CategoryResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Set;
@@ -24,9 +22,9 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoriesRepository categoriesRepository;
-    private final CacheManager cacheManager;
+    private final CatalogCacheInvalidator cacheInvalidator;
+    private final OptimisticRetryExecutor retryExecutor;
 
-    @Transactional(readOnly = true)
     @Cacheable(value="categories")
     public Set<CategoryResponse> getAllCategories() {
         return categoriesRepository.findAll().stream()
@@ -34,7 +32,6 @@ public class CategoryService {
                 .collect(Collectors.toSet());
     }
 
-    @Transactional(readOnly = true)
     @Cacheable(value="categoryById")
     public CategoryResponse getCategoryById(String id) {
         return categoriesRepository.findById(id)
@@ -43,15 +40,16 @@ public class CategoryService {
     }
 
 
-    @Transactional
     public Categories updateGenreDescription(String name, String description) {
-        cacheManager.getCache("categories").clear();
-
-        Categories genre = categoriesRepository.findByName(name)
-                .orElseThrow(() -> new CategoryNotFoundException("Género no encontrado: " + name));
-
-        genre.setDescription(description);
-        return categoriesRepository.save(genre);
+        Categories updated = retryExecutor.execute("category.updateDescription", () -> {
+            Categories genre = categoriesRepository.findByNameIgnoringAccents(name)
+                    .orElseThrow(() -> new CategoryNotFoundException("Género no encontrado: " + name));
+
+            genre.setDescription(description);
+            return categoriesRepository.save(genre);
+        });
+        cacheInvalidator.categoryChanged(updated.getId());
+        return updated;
     }
 
     private CategoryResponse mapToCategoriesResponse(Categories category) {
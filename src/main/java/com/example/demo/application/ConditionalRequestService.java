@@ -0,0 +1,167 @@
+package com.example.demo.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Peticiones condicionales (ETag / If-None-Match) para las lecturas por ID del catálogo.
+ *
+ * El ETag se deriva del ID y del campo @Version del documento, que se lee con una proyección
+ * de solo esos dos campos. Si el cliente ya tiene esa versión se responde 304 sin consultar
+ * la caché ni construir el cuerpo; en otro caso se adjunta el ETag al JSON ya serializado
+ * ({@link SerializedResponseCache}), que se envía con gzip si el cliente lo acepta.
+ *
+ * Métricas: http.conditional.requests (etiquetas resource y result = not_modified, modified
+ * o unconditional) y http.conditional.not_modified.ratio (proporción de 304 por recurso).
+ */
+@Service
+@RequiredArgsConstructor
+public class ConditionalRequestService {
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SerializedResponseCache serializedResponseCache;
+
+    private final Map<String, ResourceStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Responde con el JSON comprimido de la caché de respuestas serializadas, o 304 si el
+     * cliente ya tiene la versión actual.
+     */
+    public ResponseEntity<byte[]> conditionalGet(String resource, Class<?> type, Criteria criteria,
+                                                 WebRequest request, Supplier<?> body) {
+        return conditionalGet(resource, type, criteria, request, version -> body.get());
+    }
+
+    /**
+     * Igual que {@link #conditionalGet(String, Class, Criteria, WebRequest, Supplier)}, pero el
+     * cuerpo recibe la versión del ETag para poder comprobar que la representación que devuelve
+     * no es anterior (por ejemplo, cuando se sirve desde un modelo de lectura). Si el documento no
+     * existe recibe -1.
+     */
+    public ResponseEntity<byte[]> conditionalGet(String resource, Class<?> type, Criteria criteria,
+                                                 WebRequest request, LongFunction<?> body) {
+        CurrentVersion current = currentVersion(type, criteria);
+        if (current == null) {
+            // El documento no existe: el servicio responde con su excepción habitual (404)
+            return json(ResponseEntity.ok(), serializedResponseCache.gzippedJson(null, () -> body.apply(-1)), request);
+        }
+
+        String etag = current.etag();
+        ResourceStats resourceStats = stats(resource);
+        if (request.checkNotModified(etag)) {
+            resourceStats.notModified.increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            resourceStats.modified.increment();
+        } else {
+            resourceStats.unconditional.increment();
+        }
+        byte[] gzipped = serializedResponseCache.gzippedJson(cacheKey(resource, etag), () -> body.apply(current.version()));
+        return json(ResponseEntity.ok().eTag(etag), gzipped, request);
+    }
+
+    /**
+     * Precalienta la respuesta serializada de la versión actual del documento, con la misma clave
+     * que usará {@link #conditionalGet(String, Class, Criteria, WebRequest, LongFunction)}. No cuenta
+     * en las métricas de peticiones condicionales.
+     */
+    public void warm(String resource, Class<?> type, Criteria criteria, LongFunction<?> body) {
+        CurrentVersion current = currentVersion(type, criteria);
+        if (current != null) {
+            serializedResponseCache.gzippedJson(cacheKey(resource, current.etag()), () -> body.apply(current.version()));
+        }
+    }
+
+    private static String cacheKey(String resource, String etag) {
+        return resource + ":" + etag;
+    }
+
+    private static ResponseEntity<byte[]> json(ResponseEntity.BodyBuilder builder, byte[] gzipped, WebRequest request) {
+        builder.contentType(MediaType.APPLICATION_JSON).varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipped);
+        }
+        return builder.body(SerializedResponseCache.gunzip(gzipped));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (("gzip".equalsIgnoreCase(parts[0].trim()) || "*".equals(parts[0].trim()))
+                    && !(parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CurrentVersion currentVersion(Class<?> type, Criteria criteria) {
+        Query query = new Query(criteria);
+        query.fields().include("version");
+        // El tipo de dominio traduce "id" a _id; el resultado se lee como Document sin mapear la entidad
+        Document document = mongoTemplate.query(type).as(Document.class).matching(query).firstValue();
+        if (document == null) {
+            return null;
+        }
+        long version = document.get("version") instanceof Number number ? number.longValue() : 0;
+        // ETag débil: la representación con y sin gzip es la misma a efectos de caché
+        return new CurrentVersion("W/\"" + document.get("_id") + "-" + version + "\"", version);
+    }
+
+    private record CurrentVersion(String etag, long version) {
+    }
+
+    private ResourceStats stats(String resource) {
+        return stats.computeIfAbsent(resource, name -> new ResourceStats(meterRegistry, name));
+    }
+
+    private static final class ResourceStats {
+        private final Counter notModified;
+        private final Counter modified;
+        private final Counter unconditional;
+
+        private ResourceStats(MeterRegistry registry, String resource) {
+            notModified = counter(registry, resource, "not_modified");
+            modified = counter(registry, resource, "modified");
+            unconditional = counter(registry, resource, "unconditional");
+            Gauge.builder("http.conditional.not_modified.ratio", this, ResourceStats::ratio)
+                    .description("Proporción de lecturas respondidas con 304")
+                    .tag("resource", resource)
+                    .register(registry);
+        }
+
+        private double ratio() {
+            double total = notModified.count() + modified.count() + unconditional.count();
+            return total == 0 ? 0 : notModified.count() / total;
+        }
+
+        private static Counter counter(MeterRegistry registry, String resource, String result) {
+            return Counter.builder("http.conditional.requests")
+                    .tag("resource", resource)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
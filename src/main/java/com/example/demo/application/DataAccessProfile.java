@@ -0,0 +1,109 @@
+package com.example.demo.application;
+
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Presupuestos de tiempo (maxTimeMS) y preferencia de lectura de las consultas.
+ *
+ * Las lecturas del catálogo que no se guardan en caché (directorio de autores, analítica) toleran
+ * datos algo atrasados y van a secundarios cuando existen (secondaryPreferred). Las que llenan una
+ * caché van al primario: justo después de invalidar por una escritura, un secundario atrasado
+ * volvería a guardar el valor anterior como si fuera nuevo hasta la siguiente escritura o el TTL.
+ * El resto de consultas, incluidas todas las de los flujos de escritura, usan la preferencia por
+ * defecto del cliente (primario), de modo que siempre leen sus propias escrituras.
+ */
+@Component
+public class DataAccessProfile {
+
+    /**
+     * Presupuesto de los finders de repositorio: @Meta exige una constante.
+     */
+    public static final long REPOSITORY_MAX_TIME_MS = 3000;
+
+    /**
+     * Intercalación en español que ignora tildes y mayúsculas ("garcia marquez" = "García
+     * Márquez"). Las consultas que la usan se resuelven con los índices de
+     * {@link SpanishCollationIndexes}, que se crean con la misma intercalación.
+     */
+    public static final String SPANISH_COLLATION = "{ 'locale' : 'es', 'strength' : 1 }";
+
+    private static final Map<Character, String> ACCENT_CLASSES = Map.of(
+            'a', "[aáàäâAÁÀÄÂ]", 'e', "[eéèëêEÉÈËÊ]", 'i', "[iíìïîIÍÌÏÎ]",
+            'o', "[oóòöôOÓÒÖÔ]", 'u', "[uúùüûUÚÙÜÛ]", 'n', "[nñNÑ]");
+
+    @Value("${mongodb.query.default-max-time:PT5S}")
+    private Duration defaultMaxTime = Duration.ofSeconds(5);
+
+    @Value("${mongodb.query.catalog-max-time:PT2S}")
+    private Duration catalogMaxTime = Duration.ofSeconds(2);
+
+    @Value("${mongodb.catalog.secondary-reads:true}")
+    private boolean catalogSecondaryReads = true;
+
+    /**
+     * Lectura de catálogo que no se guarda en caché: presupuesto corto y secundarios preferidos.
+     */
+    public Query catalogRead(Query query) {
+        query.maxTime(catalogMaxTime);
+        if (catalogSecondaryReads) {
+            query.withReadPreference(ReadPreference.secondaryPreferred());
+        }
+        return query;
+    }
+
+    /**
+     * Lectura de catálogo que llena una caché: presupuesto corto, siempre sobre el primario.
+     */
+    public Query cachedCatalogRead(Query query) {
+        return query.maxTime(catalogMaxTime);
+    }
+
+    /**
+     * Consulta sobre el primario con el presupuesto general.
+     */
+    public Query budgeted(Query query) {
+        return query.maxTime(defaultMaxTime);
+    }
+
+    public static Collation spanishCollation() {
+        return Collation.of("es").strength(Collation.ComparisonLevel.primary());
+    }
+
+    /**
+     * Expresión regular de "contiene" que ignora tildes y mayúsculas. Un "contiene" no puede
+     * usar un índice: se reserva para cuando la búsqueda exacta con intercalación no encuentra nada.
+     */
+    public static String accentInsensitiveContains(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+        StringBuilder pattern = new StringBuilder();
+        for (char c : folded.toCharArray()) {
+            String accentClass = ACCENT_CLASSES.get(c);
+            if (accentClass != null) {
+                pattern.append(accentClass);
+            } else if (Character.isLetterOrDigit(c) || c == ' ') {
+                pattern.append(c);
+            } else {
+                pattern.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return pattern.toString();
+    }
+
+    /**
+     * Agregación de catálogo que llena una caché: presupuesto corto, siempre sobre el primario.
+     */
+    public AggregationOptions cachedCatalogAggregation() {
+        return AggregationOptions.builder().maxTime(catalogMaxTime).build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.application;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creación diferida de los índices de @Indexed, @CompoundIndex y @TextIndexed.
+ *
+ * Con spring.data.mongodb.auto-index-creation=true cada índice se asegura durante el arranque,
+ * con un viaje a MongoDB por índice antes de poder atender peticiones. En el perfil fast-startup
+ * esa opción se desactiva y este componente asegura los mismos índices en segundo plano cuando la
+ * aplicación ya está lista. Los índices ya existen en cualquier base en uso, así que normalmente
+ * solo se confirma que no cambiaron.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "mongodb.indexes.deferred", havingValue = "true")
+public class DeferredIndexCreator {
+
+    private final MongoTemplate mongoTemplate;
+    private final TaskExecutor taskExecutor;
+
+    public DeferredIndexCreator(MongoTemplate mongoTemplate,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexesInBackground() {
+        taskExecutor.execute(this::createIndexes);
+    }
+
+    public void createIndexes() {
+        long start = System.currentTimeMillis();
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+
+        int created = 0;
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            for (IndexDefinition index : resolver.resolveIndexFor(entity.getType())) {
+                try {
+                    indexOps.ensureIndex(index);
+                    created++;
+                } catch (RuntimeException ex) {
+                    log.warn("No se pudo asegurar un índice de '{}': {}", entity.getCollection(), ex.getMessage());
+                }
+            }
+        }
+        log.info("{} índices asegurados en segundo plano en {} ms", created, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.Users;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Migra los favoritos al modelo actual: los libros dejan de guardar la lista favoredByUsers
+ * (la relación vive solo en usuarios.favorites) y pasan a tener el contador favoritesCount.
+ *
+ * Solo escribe en los libros que aún no tienen el contador (o que conservan la lista), de modo
+ * que no pisa los $inc de favoritos ya migrados, y sube su version para que el modelo de lectura
+ * los vuelva a cargar. Se ejecuta una sola vez, después de {@link VersionFieldMigration} y antes
+ * de que el servidor web acepte peticiones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FavoritesMigration implements SmartLifecycle {
+
+    private static final String MIGRATION = "favorites-count";
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationMarkers migrationMarkers;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        if (!migrationMarkers.isApplied(MIGRATION)) {
+            migrate();
+            migrationMarkers.markApplied(MIGRATION);
+        }
+        running = true;
+    }
+
+    private void migrate() {
+        Criteria pending = Criteria.where("favoritesCount").exists(false);
+        if (!mongoTemplate.exists(Query.query(pending), Book.class)) {
+            return;
+        }
+
+        // Conteo de favoritos por libro a partir de los usuarios
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.unwind("favorites"),
+                Aggregation.group("favorites.bookId").count().as("count"));
+        List<Document> counts = mongoTemplate.aggregate(aggregation,
+                mongoTemplate.getCollectionName(Users.class), Document.class).getMappedResults();
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Book.class);
+        counts.stream()
+                .filter(count -> count.get("_id") != null)
+                .forEach(count -> bulk.updateOne(
+                        Query.query(Criteria.where("id").is(count.getString("_id")).andOperator(pending)),
+                        new Update().set("favoritesCount", ((Number) count.get("count")).intValue()).inc("version", 1)));
+        // Los pendientes que no aparecen en ningún usuario
+        bulk.updateMulti(Query.query(pending), new Update().set("favoritesCount", 0).inc("version", 1));
+        bulk.updateMulti(Query.query(Criteria.where("favoredByUsers").exists(true)),
+                new Update().unset("favoredByUsers").inc("version", 1));
+        bulk.execute();
+
+        log.info("Contadores de favoritos inicializados para {} libros", counts.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return VersionFieldMigration.PHASE + 1;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.HelpfulVote;
+import com.example.demo.controllers.domain.entity.Review;
+import com.example.demo.controllers.domain.repository.ReviewRepository;
+import com.example.demo.controllers.domain.repository.UserRepository;
+import com.example.demo.controllers.exception.HelpfulVoteAlreadyExistsException;
+import com.example.demo.controllers.exception.ResourceNotFoundException;
+import com.example.demo.controllers.exception.UserNotFoundException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Votos "útil" sobre reseñas. Cada voto se deduplica por usuario con un índice único y el
+ * incremento se acumula en memoria; un proceso periódico aplica todos los incrementos
+ * pendientes con un único bulk de $inc, de modo que las reseñas muy votadas reciben una
+ * escritura por intervalo en lugar de una por voto.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HelpfulVoteService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ReviewRepository reviewRepository;
+    private final UserRepository userRepository;
+
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    public void vote(String reviewId, String userId) {
+        if (!reviewRepository.existsById(reviewId)) {
+            throw new ResourceNotFoundException("Reseña no encontrada con ID: " + reviewId);
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("Usuario no encontrado con ID: " + userId);
+        }
+
+        try {
+            mongoTemplate.insert(HelpfulVote.builder()
+                    .reviewId(reviewId)
+                    .userId(userId)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (DuplicateKeyException ex) {
+            throw new HelpfulVoteAlreadyExistsException("El usuario ya marcó esta reseña como útil");
+        }
+
+        pending.merge(reviewId, 1L, Long::sum);
+    }
+
+    /**
+     * Aplica los votos acumulados. También incrementa la versión de cada reseña para que
+     * un guardado completo con datos anteriores al voto falle en lugar de sobrescribir el contador.
+     */
+    @Scheduled(fixedDelayString = "${reviews.helpful-flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // remove() es atómico por clave: los votos que lleguen después quedan para el siguiente ciclo
+        Map<String, Long> batch = new HashMap<>();
+        for (String reviewId : pending.keySet()) {
+            Long delta = pending.remove(reviewId);
+            if (delta != null && delta != 0) {
+                batch.put(reviewId, delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+            batch.forEach((reviewId, delta) -> bulk.updateOne(
+                    Query.query(Criteria.where("id").is(reviewId)),
+                    new Update().inc("helpfulCount", delta).inc("version", 1)));
+            bulk.execute();
+            log.debug("Votos útiles aplicados a {} reseñas", batch.size());
+        } catch (RuntimeException ex) {
+            // Devolver los incrementos al buffer para reintentarlos en el siguiente ciclo
+            batch.forEach((reviewId, delta) -> pending.merge(reviewId, delta, Long::sum));
+            log.warn("No se pudieron aplicar los votos útiles pendientes", ex);
+        }
+    }
+
+    public void onReviewDeleted(String reviewId) {
+        pending.remove(reviewId);
+        mongoTemplate.remove(Query.query(Criteria.where("reviewId").is(reviewId)), HelpfulVote.class);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
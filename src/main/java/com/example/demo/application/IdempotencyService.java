@@ -0,0 +1,123 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.IdempotencyRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Almacén de respuestas por clave de idempotencia. El _id del registro es la propia clave,
+ * de modo que la inserción inicial actúa como bloqueo: solo una petición puede reclamarla.
+ *
+ * El bloqueo dura idempotency.lease-seconds (lockedUntil). Si el proceso que lo tomó cae antes
+ * de completar o liberar la clave, un reintento con la misma petición lo retoma al vencer el
+ * plazo en lugar de recibir 409 hasta que el TTL borre el registro.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${idempotency.lease-seconds:120}")
+    private long leaseSeconds = 120;
+
+    @Value("${idempotency.complete-attempts:3}")
+    private int completeAttempts = 3;
+
+    /**
+     * Intenta reclamar la clave para ejecutar la petición.
+     *
+     * @return vacío si la clave se reclamó, o el registro existente si ya estaba en uso
+     */
+    public Optional<IdempotencyRecord> claim(String key, String fingerprint) {
+        try {
+            Instant now = Instant.now();
+            mongoTemplate.insert(IdempotencyRecord.builder()
+                    .id(key)
+                    .fingerprint(fingerprint)
+                    .status(IdempotencyRecord.Status.PROCESSING)
+                    .createdAt(now)
+                    .lockedUntil(now.plusSeconds(leaseSeconds))
+                    .build());
+            return Optional.empty();
+        } catch (DuplicateKeyException ex) {
+            if (takeOverExpired(key, fingerprint)) {
+                log.warn("Clave de idempotencia {} retomada: la petición original no terminó en {} s", key, leaseSeconds);
+                return Optional.empty();
+            }
+            IdempotencyRecord existing = mongoTemplate.findById(key, IdempotencyRecord.class);
+            if (existing == null) {
+                // El registro expiró o se liberó entre la inserción y la lectura
+                return claim(key, fingerprint);
+            }
+            return Optional.of(existing);
+        }
+    }
+
+    // Actualización condicional: solo una petición puede retomar un bloqueo vencido
+    private boolean takeOverExpired(String key, String fingerprint) {
+        Instant now = Instant.now();
+        Query expired = Query.query(Criteria.where("id").is(key)
+                .and("status").is(IdempotencyRecord.Status.PROCESSING)
+                .and("fingerprint").is(fingerprint)
+                .orOperator(
+                        Criteria.where("lockedUntil").lt(now),
+                        // Registros creados antes de existir lockedUntil
+                        Criteria.where("lockedUntil").exists(false).and("createdAt").lt(now.minusSeconds(leaseSeconds))));
+        Update update = new Update()
+                .set("createdAt", now)
+                .set("lockedUntil", now.plusSeconds(leaseSeconds));
+        return mongoTemplate.updateFirst(expired, update, IdempotencyRecord.class).getModifiedCount() > 0;
+    }
+
+    /**
+     * Guarda la respuesta de una petición que ya se ejecutó. Se reintenta porque un registro que
+     * quede en PROCESSING podría retomarse al vencer el bloqueo y repetir la petición. El último
+     * intento guarda solo el estado HTTP, sin cuerpo, por si lo que falla es el tamaño de la
+     * respuesta; los reintentos del cliente reciben entonces ese estado con el cuerpo vacío.
+     */
+    public void complete(String key, int status, String contentType, byte[] body) {
+        Update full = new Update()
+                .set("status", IdempotencyRecord.Status.COMPLETED)
+                .set("responseStatus", status)
+                .set("contentType", contentType)
+                .set("responseBody", body);
+        Update statusOnly = new Update()
+                .set("status", IdempotencyRecord.Status.COMPLETED)
+                .set("responseStatus", status)
+                .unset("contentType")
+                .unset("responseBody");
+        Query query = Query.query(Criteria.where("id").is(key));
+        for (int attempt = 1; attempt <= completeAttempts; attempt++) {
+            try {
+                mongoTemplate.updateFirst(query, attempt < completeAttempts ? full : statusOnly, IdempotencyRecord.class);
+                return;
+            } catch (DataAccessException ex) {
+                log.warn("No se pudo guardar la respuesta de la clave de idempotencia {} (intento {} de {})",
+                        key, attempt, completeAttempts, ex);
+            }
+        }
+        log.error("La clave de idempotencia {} queda en PROCESSING tras ejecutar la petición", key);
+    }
+
+    /**
+     * Libera la clave cuando la petición falló por un error del servidor, para que el cliente pueda reintentar.
+     */
+    public void release(String key) {
+        mongoTemplate.remove(Query.query(Criteria.where("id").is(key)
+                .and("status").is(IdempotencyRecord.Status.PROCESSING)), IdempotencyRecord.class);
+        log.debug("Clave de idempotencia liberada: {}", key);
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.Loan;
+import com.example.demo.controllers.domain.entity.Review;
+import com.example.demo.controllers.response.PageResponse;
+import com.example.demo.controllers.response.RankedBookResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Rankings precalculados de libros: mejor calificados (promedio bayesiano) y tendencia
+ * (préstamos y reseñas recientes con decaimiento exponencial), globales y por categoría.
+ *
+ * Los rankings se reconstruyen desde Mongo periódicamente y se mantienen de forma incremental
+ * con los eventos de reseñas y préstamos, de modo que las lecturas nunca consultan la base de datos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    private static final String ALL_CATEGORIES = "*";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${leaderboard.rating.prior-votes:10}")
+    private double priorVotes;
+
+    @Value("${leaderboard.trending.half-life-hours:72}")
+    private double trendingHalfLifeHours;
+
+    @Value("${leaderboard.trending.window-days:30}")
+    private int trendingWindowDays;
+
+    @Value("${leaderboard.trending.loan-weight:1.0}")
+    private double loanWeight;
+
+    @Value("${leaderboard.trending.review-weight:0.5}")
+    private double reviewWeight;
+
+    private volatile State state = new State(0.0, System.currentTimeMillis());
+
+    // Eventos recibidos mientras se carga un estado nuevo; null si no hay reconstrucción en curso
+    private List<Consumer<State>> changedDuringRebuild;
+
+    /**
+     * Carga un estado nuevo fuera del lock y lo publica. Los eventos que llegan durante la carga
+     * se aplican al estado actual y además se guardan para repetirlos sobre el nuevo antes de
+     * publicarlo. Un evento que la carga ya leyó de Mongo puede contarse dos veces en tendencia
+     * hasta la siguiente reconstrucción; perderlo dejaría el ranking desactualizado una hora.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                return;
+            }
+            changedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            State rebuilt = loadState();
+            synchronized (this) {
+                changedDuringRebuild.forEach(change -> change.accept(rebuilt));
+                state = rebuilt;
+            }
+            log.info("Rankings reconstruidos: {} libros en {} ms",
+                    rebuilt.books.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron reconstruir los rankings de libros", ex);
+        } finally {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    public PageResponse<RankedBookResponse> getTopRated(String category, int page, int size) {
+        return toPage(state.ratingBoard(category), page, size, false);
+    }
+
+    public PageResponse<RankedBookResponse> getTrending(String category, int page, int size) {
+        return toPage(state.trendingBoard(category), page, size, true);
+    }
+
+    /**
+     * Actualiza la información y el puntaje de calificación de un libro (creación, edición o nuevo promedio).
+     */
+    public synchronized void onBookChanged(Book book) {
+        apply(current -> applyBookChanged(current, book));
+    }
+
+    public synchronized void onBookDeleted(String bookId) {
+        apply(current -> applyBookDeleted(current, bookId));
+    }
+
+    public void onLoan(Book book) {
+        recordActivity(book, loanWeight, Instant.now());
+    }
+
+    public void onReview(Book book) {
+        recordActivity(book, reviewWeight, Instant.now());
+    }
+
+    private synchronized void recordActivity(Book book, double weight, Instant when) {
+        apply(current -> applyActivity(current, book, weight, when));
+    }
+
+    // Llamado con el lock tomado
+    private void apply(Consumer<State> change) {
+        change.accept(state);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(change);
+        }
+    }
+
+    private void applyBookChanged(State current, Book book) {
+        BookEntry entry = BookEntry.of(book);
+        BookEntry previous = current.books.put(entry.bookId(), entry);
+
+        if (previous != null) {
+            previous.categories().stream()
+                    .filter(category -> !entry.categories().contains(category))
+                    .forEach(category -> {
+                        current.ratingBoard(category).remove(entry.bookId());
+                        current.trendingBoard(category).remove(entry.bookId());
+                    });
+        }
+
+        updateRating(current, entry);
+
+        Double trendingScore = current.trendingScores.get(entry.bookId());
+        if (trendingScore != null) {
+            updateTrending(current, entry, trendingScore);
+        }
+    }
+
+    private void applyBookDeleted(State current, String bookId) {
+        BookEntry previous = current.books.remove(bookId);
+        current.trendingScores.remove(bookId);
+        if (previous == null) {
+            return;
+        }
+        for (String category : previous.boardKeys()) {
+            current.ratingBoard(category).remove(bookId);
+            current.trendingBoard(category).remove(bookId);
+        }
+    }
+
+    private void applyActivity(State current, Book book, double weight, Instant when) {
+        BookEntry entry = current.books.computeIfAbsent(book.getId(), id -> BookEntry.of(book));
+        double score = current.trendingScores.merge(entry.bookId(), scaledWeight(current, weight, when), Double::sum);
+        updateTrending(current, entry, score);
+    }
+
+    private void updateRating(State current, BookEntry entry) {
+        if (entry.ratingsCount() <= 0) {
+            entry.boardKeys().forEach(category -> current.ratingBoard(category).remove(entry.bookId()));
+            return;
+        }
+        double score = bayesianRating(entry, current.globalMean);
+        entry.boardKeys().forEach(category -> current.ratingBoard(category).put(entry, score));
+    }
+
+    private void updateTrending(State current, BookEntry entry, double score) {
+        entry.boardKeys().forEach(category -> current.trendingBoard(category).put(entry, score));
+    }
+
+    /**
+     * Promedio bayesiano: acerca al promedio global los libros con pocas calificaciones.
+     */
+    private double bayesianRating(BookEntry entry, double globalMean) {
+        double votes = entry.ratingsCount();
+        return (votes * entry.averageRating() + priorVotes * globalMean) / (votes + priorVotes);
+    }
+
+    /**
+     * En lugar de hacer decaer todos los puntajes con el tiempo, los eventos nuevos pesan
+     * exponencialmente más (respecto a un instante de referencia). El orden resultante es el mismo
+     * y solo se toca el libro afectado.
+     */
+    private double scaledWeight(State current, double weight, Instant when) {
+        return weight * Math.exp(decayRatePerMilli() * (when.toEpochMilli() - current.epochMillis));
+    }
+
+    private double decayRatePerMilli() {
+        return Math.log(2) / (trendingHalfLifeHours * 3_600_000d);
+    }
+
+    private PageResponse<RankedBookResponse> toPage(Board board, int page, int size, boolean decayed) {
+        double scale = decayed
+                ? Math.exp(-decayRatePerMilli() * (System.currentTimeMillis() - state.epochMillis))
+                : 1.0;
+        List<Ranked> ranked = board.page(page, size);
+        List<RankedBookResponse> content = new ArrayList<>(ranked.size());
+        int rank = page * size;
+        for (Ranked r : ranked) {
+            content.add(RankedBookResponse.builder()
+                    .rank(++rank)
+                    .bookId(r.book().bookId())
+                    .title(r.book().title())
+                    .coverImageUrl(r.book().coverImageUrl())
+                    .averageRating(r.book().averageRating())
+                    .ratingsCount(r.book().ratingsCount())
+                    .score(r.score() * scale)
+                    .build());
+        }
+        return PageResponse.of(content, page, size, board.size());
+    }
+
+    private State loadState() {
+        Query booksQuery = new Query();
+        booksQuery.fields().include("title", "coverImageUrl", "averageRating", "ratingsCount", "categories");
+
+        Map<String, BookEntry> entries = new ConcurrentHashMap<>();
+        double ratingSum = 0;
+        long ratingCount = 0;
+        try (Stream<Book> books = mongoTemplate.stream(booksQuery, Book.class)) {
+            for (Book book : (Iterable<Book>) books::iterator) {
+                BookEntry entry = BookEntry.of(book);
+                entries.put(entry.bookId(), entry);
+                ratingSum += entry.averageRating() * entry.ratingsCount();
+                ratingCount += entry.ratingsCount();
+            }
+        }
+
+        State rebuilt = new State(ratingCount > 0 ? ratingSum / ratingCount : 0.0, System.currentTimeMillis());
+        rebuilt.books.putAll(entries);
+        entries.values().forEach(entry -> updateRating(rebuilt, entry));
+
+        Instant since = Instant.now().minusSeconds(trendingWindowDays * 86_400L);
+
+        Query loansQuery = new Query(Criteria.where("loanDate").gte(LocalDate.ofInstant(since, ZoneId.systemDefault())));
+        loansQuery.fields().include("book.bookId", "loanDate");
+        try (Stream<Loan> loans = mongoTemplate.stream(loansQuery, Loan.class)) {
+            loans.filter(loan -> loan.getBook() != null && loan.getLoanDate() != null)
+                    .forEach(loan -> addSeedActivity(rebuilt, loan.getBook().getBookId(), loanWeight,
+                            loan.getLoanDate().atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        }
+
+        Query reviewsQuery = new Query(Criteria.where("createdAt").gte(LocalDateTime.ofInstant(since, ZoneId.systemDefault())));
+        reviewsQuery.fields().include("book.bookId", "createdAt");
+        try (Stream<Review> reviews = mongoTemplate.stream(reviewsQuery, Review.class)) {
+            reviews.filter(review -> review.getBook() != null && review.getCreatedAt() != null)
+                    .forEach(review -> addSeedActivity(rebuilt, review.getBook().getBookId(), reviewWeight,
+                            review.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant()));
+        }
+
+        rebuilt.trendingScores.forEach((bookId, score) -> updateTrending(rebuilt, rebuilt.books.get(bookId), score));
+        return rebuilt;
+    }
+
+    private void addSeedActivity(State target, String bookId, double weight, Instant when) {
+        if (target.books.containsKey(bookId)) {
+            target.trendingScores.merge(bookId, scaledWeight(target, weight, when), Double::sum);
+        }
+    }
+
+    private static final class State {
+        private final double globalMean;
+        private final long epochMillis;
+        private final Map<String, BookEntry> books = new ConcurrentHashMap<>();
+        private final Map<String, Double> trendingScores = new ConcurrentHashMap<>();
+        private final Map<String, Board> ratingBoards = new ConcurrentHashMap<>();
+        private final Map<String, Board> trendingBoards = new ConcurrentHashMap<>();
+
+        private State(double globalMean, long epochMillis) {
+            this.globalMean = globalMean;
+            this.epochMillis = epochMillis;
+        }
+
+        private Board ratingBoard(String category) {
+            return ratingBoards.computeIfAbsent(category != null ? category : ALL_CATEGORIES, key -> new Board());
+        }
+
+        private Board trendingBoard(String category) {
+            return trendingBoards.computeIfAbsent(category != null ? category : ALL_CATEGORIES, key -> new Board());
+        }
+    }
+
+    /**
+     * Ranking ordenado por puntaje descendente. El índice por libro permite reemplazar
+     * la posición de un libro en O(log n).
+     */
+    private static final class Board {
+        private static final Comparator<Ranked> ORDER = Comparator.comparingDouble(Ranked::score).reversed()
+                .thenComparing(ranked -> ranked.book().bookId());
+
+        private final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>(ORDER);
+        private final Map<String, Ranked> byBook = new ConcurrentHashMap<>();
+
+        private void put(BookEntry book, double score) {
+            Ranked ranked = new Ranked(book, score);
+            Ranked previous = byBook.put(book.bookId(), ranked);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            ranking.add(ranked);
+        }
+
+        private void remove(String bookId) {
+            Ranked previous = byBook.remove(bookId);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+        }
+
+        private List<Ranked> page(int page, int size) {
+            return ranking.stream().skip((long) page * size).limit(size).toList();
+        }
+
+        private int size() {
+            return byBook.size();
+        }
+    }
+
+    private record Ranked(BookEntry book, double score) {
+    }
+
+    private record BookEntry(String bookId, String title, String coverImageUrl,
+                             double averageRating, int ratingsCount, Set<String> categories) {
+
+        private static BookEntry of(Book book) {
+            return new BookEntry(
+                    book.getId(),
+                    book.getTitle(),
+                    book.getCoverImageUrl(),
+                    book.getAverageRating() != null ? book.getAverageRating() : 0.0,
+                    book.getRatingsCount() != null ? book.getRatingsCount() : 0,
+                    book.getCategories() != null ? Set.copyOf(book.getCategories()) : Collections.emptySet());
+        }
+
+        private Set<String> boardKeys() {
+            Set<String> keys = new HashSet<>(categories);
+            keys.add(ALL_CATEGORIES);
+            return keys;
+        }
+    }
+}
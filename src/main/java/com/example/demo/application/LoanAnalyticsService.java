@@ -0,0 +1,383 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Loan;
+import com.example.demo.controllers.domain.entity.LoanEvent;
+import com.example.demo.controllers.domain.entity.LoanRollup;
+import com.example.demo.controllers.exception.InvalidAnalyticsQueryException;
+import com.example.demo.controllers.response.LoanAnalyticsResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Analítica de circulación: préstamos y devoluciones por intervalo, categoría y sede, duración
+ * promedio y tasa de vencidos.
+ *
+ * Cada préstamo o devolución confirmado se guarda como evento en la colección de series de
+ * tiempo "eventos_prestamo" y, en la misma tarea asíncrona, incrementa los contadores de
+ * "resumen_prestamos" por hora y por día, para la sede y categorías del evento y para los
+ * totales ("*"). Las consultas leen solo los resúmenes: su costo depende del número de
+ * intervalos del rango, no del número de préstamos, y nunca tocan "prestamos".
+ *
+ * Los intervalos se cortan en la zona analytics.zone. Si un resumen se pierde o se corrompe,
+ * {@link #rebuildRollups(LocalDate, LocalDate)} lo recalcula desde los eventos.
+ */
+@Slf4j
+@Service
+public class LoanAnalyticsService {
+
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+    public static final String DEFAULT_BRANCH = "Principal";
+
+    private final MongoTemplate mongoTemplate;
+    private final DataAccessProfile dataAccessProfile;
+    private final TaskExecutor taskExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${analytics.zone:America/Bogota}")
+    private ZoneId zone = ZoneId.of("America/Bogota");
+
+    @Value("${analytics.max-hourly-range-days:31}")
+    private long maxHourlyRangeDays = 31;
+
+    @Value("${analytics.max-daily-range-days:1096}")
+    private long maxDailyRangeDays = 1096;
+
+    public LoanAnalyticsService(MongoTemplate mongoTemplate, DataAccessProfile dataAccessProfile,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.dataAccessProfile = dataAccessProfile;
+        this.taskExecutor = taskExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * La colección de series de tiempo debe crearse explícitamente: si la creara el primer
+     * insert sería una colección normal.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createEventCollection() {
+        try {
+            if (!mongoTemplate.collectionExists(LoanEvent.class)) {
+                mongoTemplate.createCollection(LoanEvent.class);
+                log.info("Colección de series de tiempo '{}' creada", mongoTemplate.getCollectionName(LoanEvent.class));
+            }
+        } catch (RuntimeException ex) {
+            // Otra instancia pudo crearla al mismo tiempo
+            log.warn("No se pudo crear la colección de eventos de préstamo", ex);
+        }
+    }
+
+    /**
+     * Registra un préstamo nuevo tras el commit de la transacción actual.
+     *
+     * @param occurredAt instante real del préstamo, o null si se registró con una fecha indicada por el cliente
+     */
+    public void recordLoan(Loan loan, Collection<String> categories, Instant occurredAt) {
+        LoanEvent event = LoanEvent.builder()
+                .timestamp(eventTime(occurredAt, loan.getLoanDate()))
+                .meta(new LoanEvent.Meta(LoanEvent.LOAN, branchOf(loan)))
+                .loanId(loan.getId())
+                .bookId(loan.getBook() != null ? loan.getBook().getBookId() : null)
+                .userId(loan.getUser() != null ? loan.getUser().getUserId() : null)
+                .categories(categories != null ? List.copyOf(categories) : List.of())
+                .build();
+        recordAfterCommit(event);
+    }
+
+    /**
+     * Registra la devolución de un préstamo tras el commit de la transacción actual.
+     *
+     * @param occurredAt instante real de la devolución, o null si solo se conoce la fecha
+     */
+    public void recordReturn(Loan loan, Collection<String> categories, Instant occurredAt) {
+        LocalDate returnDate = loan.getReturnDate() != null ? loan.getReturnDate() : LocalDate.now(zone);
+        LoanEvent event = LoanEvent.builder()
+                .timestamp(eventTime(occurredAt, returnDate))
+                .meta(new LoanEvent.Meta(LoanEvent.RETURN, branchOf(loan)))
+                .loanId(loan.getId())
+                .bookId(loan.getBook() != null ? loan.getBook().getBookId() : null)
+                .userId(loan.getUser() != null ? loan.getUser().getUserId() : null)
+                .categories(categories != null ? List.copyOf(categories) : List.of())
+                .loanDurationDays(loan.getLoanDate() != null
+                        ? Math.max(0, ChronoUnit.DAYS.between(loan.getLoanDate(), returnDate)) : 0L)
+                .overdue(loan.getExpectedReturnDate() != null && returnDate.isAfter(loan.getExpectedReturnDate()))
+                .build();
+        recordAfterCommit(event);
+    }
+
+    private void recordAfterCommit(LoanEvent event) {
+        TransactionRunner.afterCommit(() -> taskExecutor.execute(() -> {
+            try {
+                mongoTemplate.insert(event);
+                applyToRollups(event);
+                meterRegistry.counter("analytics.loan_events", "type", event.getMeta().getType(), "result", "recorded")
+                        .increment();
+            } catch (RuntimeException ex) {
+                // El préstamo ya está confirmado; el resumen se puede recalcular con rebuildRollups
+                meterRegistry.counter("analytics.loan_events", "type", event.getMeta().getType(), "result", "failed")
+                        .increment();
+                log.warn("No se pudo registrar el evento {} del préstamo {}", event.getMeta().getType(),
+                        event.getLoanId(), ex);
+            }
+        }));
+    }
+
+    private void applyToRollups(LoanEvent event) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LoanRollup.class);
+        for (LoanRollup key : rollupKeys(event)) {
+            Update update = new Update()
+                    .setOnInsert("granularity", key.getGranularity())
+                    .setOnInsert("bucket", key.getBucket())
+                    .setOnInsert("branch", key.getBranch())
+                    .setOnInsert("category", key.getCategory());
+            increments(event).forEach(update::inc);
+            bulk.upsert(Query.query(Criteria.where("id").is(key.getId())), update);
+        }
+        bulk.execute();
+    }
+
+    /**
+     * Serie de un rango de fechas (inclusive) por hora o por día, filtrada opcionalmente por sede
+     * y categoría. Solo se devuelven los intervalos con actividad.
+     */
+    public LoanAnalyticsResponse getSeries(String granularity, LocalDate from, LocalDate to,
+                                           String branch, String category) {
+        String unit = granularity == null ? DAY : granularity.toUpperCase();
+        if (!HOUR.equals(unit) && !DAY.equals(unit)) {
+            throw new InvalidAnalyticsQueryException("La granularidad debe ser HOUR o DAY");
+        }
+        validateRange(from, to, HOUR.equals(unit) ? maxHourlyRangeDays : maxDailyRangeDays);
+
+        Query query = Query.query(Criteria.where("granularity").is(unit)
+                        .and("branch").is(orAll(branch))
+                        .and("category").is(orAll(category))
+                        .and("bucket").gte(startOf(from)).lt(startOf(to.plusDays(1))))
+                .with(Sort.by(Sort.Direction.ASC, "bucket"));
+        List<LoanRollup> rollups = mongoTemplate.find(dataAccessProfile.catalogRead(query), LoanRollup.class);
+
+        List<LoanAnalyticsResponse.Point> points = rollups.stream()
+                .map(rollup -> toPoint(rollup, rollup.getBucket(), null))
+                .toList();
+        return LoanAnalyticsResponse.builder()
+                .groupBy(unit)
+                .from(from)
+                .to(to)
+                .branch(orAll(branch))
+                .category(orAll(category))
+                .totals(toPoint(sum(rollups), null, null))
+                .points(points)
+                .build();
+    }
+
+    /**
+     * Totales de un rango de fechas desglosados por categoría o por sede, a partir de los
+     * resúmenes diarios.
+     */
+    public LoanAnalyticsResponse getBreakdown(String by, LocalDate from, LocalDate to, String branch) {
+        boolean byCategory = "category".equalsIgnoreCase(by);
+        if (!byCategory && !"branch".equalsIgnoreCase(by)) {
+            throw new InvalidAnalyticsQueryException("El desglose debe ser por 'category' o por 'branch'");
+        }
+        validateRange(from, to, maxDailyRangeDays);
+
+        Criteria criteria = Criteria.where("granularity").is(DAY)
+                .and("bucket").gte(startOf(from)).lt(startOf(to.plusDays(1)));
+        if (byCategory) {
+            criteria.and("branch").is(orAll(branch)).and("category").ne(LoanRollup.ALL);
+        } else {
+            criteria.and("branch").ne(LoanRollup.ALL).and("category").is(LoanRollup.ALL);
+        }
+        List<LoanRollup> rollups = mongoTemplate.find(dataAccessProfile.catalogRead(Query.query(criteria)),
+                LoanRollup.class);
+
+        Map<String, List<LoanRollup>> groups = new TreeMap<>();
+        rollups.forEach(rollup -> groups
+                .computeIfAbsent(byCategory ? rollup.getCategory() : rollup.getBranch(), key -> new ArrayList<>())
+                .add(rollup));
+        List<LoanAnalyticsResponse.Point> points = groups.entrySet().stream()
+                .map(entry -> toPoint(sum(entry.getValue()), null, entry.getKey()))
+                .toList();
+
+        // Un préstamo cuenta en cada una de sus categorías: el total sale de los resúmenes "*"
+        Query totalsQuery = Query.query(Criteria.where("granularity").is(DAY)
+                .and("branch").is(byCategory ? orAll(branch) : LoanRollup.ALL)
+                .and("category").is(LoanRollup.ALL)
+                .and("bucket").gte(startOf(from)).lt(startOf(to.plusDays(1))));
+        List<LoanRollup> totals = mongoTemplate.find(dataAccessProfile.catalogRead(totalsQuery), LoanRollup.class);
+
+        return LoanAnalyticsResponse.builder()
+                .groupBy(byCategory ? "category" : "branch")
+                .from(from)
+                .to(to)
+                .branch(byCategory ? orAll(branch) : null)
+                .totals(toPoint(sum(totals), null, null))
+                .points(points)
+                .build();
+    }
+
+    /**
+     * Recalcula los resúmenes de un rango de fechas desde los eventos. Los eventos que lleguen
+     * mientras se ejecuta pueden quedar contados dos veces: conviene usarlo sobre días cerrados.
+     *
+     * @return número de resúmenes escritos
+     */
+    public long rebuildRollups(LocalDate from, LocalDate to) {
+        validateRange(from, to, maxDailyRangeDays);
+        Instant start = startOf(from);
+        Instant end = startOf(to.plusDays(1));
+
+        Map<String, LoanRollup> rollups = new LinkedHashMap<>();
+        Query events = Query.query(Criteria.where("timestamp").gte(start).lt(end));
+        try (Stream<LoanEvent> stream = mongoTemplate.stream(events, LoanEvent.class)) {
+            stream.forEach(event -> {
+                Map<String, Long> increments = increments(event);
+                for (LoanRollup key : rollupKeys(event)) {
+                    LoanRollup rollup = rollups.computeIfAbsent(key.getId(), id -> key);
+                    rollup.setLoans(rollup.getLoans() + increments.getOrDefault("loans", 0L));
+                    rollup.setReturns(rollup.getReturns() + increments.getOrDefault("returns", 0L));
+                    rollup.setOverdueReturns(rollup.getOverdueReturns() + increments.getOrDefault("overdueReturns", 0L));
+                    rollup.setTotalLoanDays(rollup.getTotalLoanDays() + increments.getOrDefault("totalLoanDays", 0L));
+                }
+            });
+        }
+
+        // Los intervalos de hora y de día del rango quedan alineados con los de los eventos
+        mongoTemplate.remove(Query.query(Criteria.where("bucket").gte(start).lt(end)), LoanRollup.class);
+        if (!rollups.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LoanRollup.class)
+                    .insert(new ArrayList<>(rollups.values()))
+                    .execute();
+        }
+        log.info("Resúmenes de préstamos recalculados entre {} y {}: {} documentos", from, to, rollups.size());
+        return rollups.size();
+    }
+
+    private List<LoanRollup> rollupKeys(LoanEvent event) {
+        String branch = event.getMeta().getBranch();
+        List<String> branches = List.of(branch, LoanRollup.ALL);
+        List<String> categories = new ArrayList<>(Set.copyOf(
+                event.getCategories() != null ? event.getCategories() : List.of()));
+        categories.remove(LoanRollup.ALL);
+        categories.add(LoanRollup.ALL);
+
+        List<LoanRollup> keys = new ArrayList<>();
+        ZonedDateTime time = event.getTimestamp().atZone(zone);
+        Map<String, Instant> buckets = Map.of(
+                HOUR, time.truncatedTo(ChronoUnit.HOURS).toInstant(),
+                DAY, time.truncatedTo(ChronoUnit.DAYS).toInstant());
+        buckets.forEach((granularity, bucket) -> {
+            for (String b : branches) {
+                for (String category : categories) {
+                    keys.add(LoanRollup.builder()
+                            .id(String.join("|", granularity, bucket.toString(), b, category))
+                            .granularity(granularity)
+                            .bucket(bucket)
+                            .branch(b)
+                            .category(category)
+                            .build());
+                }
+            }
+        });
+        return keys;
+    }
+
+    private static Map<String, Long> increments(LoanEvent event) {
+        if (LoanEvent.LOAN.equals(event.getMeta().getType())) {
+            return Map.of("loans", 1L);
+        }
+        return Map.of(
+                "returns", 1L,
+                "overdueReturns", Boolean.TRUE.equals(event.getOverdue()) ? 1L : 0L,
+                "totalLoanDays", event.getLoanDurationDays() != null ? event.getLoanDurationDays() : 0L);
+    }
+
+    private void validateRange(LocalDate from, LocalDate to, long maxDays) {
+        if (from == null || to == null) {
+            throw new InvalidAnalyticsQueryException("Las fechas 'from' y 'to' son obligatorias");
+        }
+        if (to.isBefore(from)) {
+            throw new InvalidAnalyticsQueryException("La fecha 'to' no puede ser anterior a 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > maxDays) {
+            throw new InvalidAnalyticsQueryException("El rango no puede superar " + maxDays + " días");
+        }
+    }
+
+    // Con el instante real se usa ese. Si solo hay fecha: hoy (en analytics.zone) es el momento actual,
+    // otra fecha es el inicio de ese día. La fecha sola no basta para hoy: LoanService la calcula en
+    // la zona del servidor, que cerca de medianoche puede ser otro día que en analytics.zone
+    private Instant eventTime(Instant occurredAt, LocalDate date) {
+        if (occurredAt != null) {
+            return occurredAt;
+        }
+        Instant now = Instant.now();
+        if (date == null || date.equals(LocalDate.ofInstant(now, zone))) {
+            return now;
+        }
+        return startOf(date);
+    }
+
+    private Instant startOf(LocalDate date) {
+        return date.atStartOfDay(zone).toInstant();
+    }
+
+    private static String branchOf(Loan loan) {
+        return loan.getBranch() != null && !loan.getBranch().isBlank() ? loan.getBranch() : DEFAULT_BRANCH;
+    }
+
+    private static String orAll(String value) {
+        return value == null || value.isBlank() ? LoanRollup.ALL : value;
+    }
+
+    private static LoanRollup sum(List<LoanRollup> rollups) {
+        LoanRollup total = new LoanRollup();
+        rollups.forEach(rollup -> {
+            total.setLoans(total.getLoans() + rollup.getLoans());
+            total.setReturns(total.getReturns() + rollup.getReturns());
+            total.setOverdueReturns(total.getOverdueReturns() + rollup.getOverdueReturns());
+            total.setTotalLoanDays(total.getTotalLoanDays() + rollup.getTotalLoanDays());
+        });
+        return total;
+    }
+
+    private static LoanAnalyticsResponse.Point toPoint(LoanRollup rollup, Instant bucket, String key) {
+        long returns = rollup.getReturns();
+        return LoanAnalyticsResponse.Point.builder()
+                .bucket(bucket)
+                .key(key)
+                .loans(rollup.getLoans())
+                .returns(returns)
+                .overdueReturns(rollup.getOverdueReturns())
+                .averageLoanDays(returns > 0 ? (double) rollup.getTotalLoanDays() / returns : 0)
+                .overdueRate(returns > 0 ? (double) rollup.getOverdueReturns() / returns : 0)
+                .build();
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.Loan;
+import com.example.demo.controllers.domain.entity.Users;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archivo de préstamos cerrados. Los préstamos "Entregado" devueltos hace más de
+ * loan-archive.older-than-months meses se mueven de "prestamos" a "prestamos_archivo", una
+ * colección con compresión zstd y sin los índices del flujo de préstamos, y sus resúmenes se
+ * retiran de los arreglos embebidos de libros y usuarios.
+ *
+ * Cada lote se procesa en este orden: copia al archivo (idempotente), $pull de los resúmenes y
+ * borrado en "prestamos". Si un lote se interrumpe, la siguiente ejecución lo completa.
+ *
+ * Las lecturas de historial siguen funcionando: el préstamo por ID y la migración del historial
+ * de lectura consultan también el archivo. Los totales históricos tampoco bajan: cada libro cuenta
+ * sus préstamos archivados en archivedLoansCount y las recomendaciones leen ambas colecciones.
+ */
+@Slf4j
+@Service
+public class LoanArchiveService {
+
+    public static final String COLLECTION = "prestamos_archivo";
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogCacheInvalidator cacheInvalidator;
+    private final BookReadModelService bookReadModel;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${loan-archive.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${loan-archive.older-than-months:12}")
+    private int olderThanMonths = 12;
+
+    @Value("${loan-archive.batch-size:500}")
+    private int batchSize = 500;
+
+    public LoanArchiveService(MongoTemplate mongoTemplate, CatalogCacheInvalidator cacheInvalidator,
+                              BookReadModelService bookReadModel, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheInvalidator = cacheInvalidator;
+        this.bookReadModel = bookReadModel;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Crea la colección de archivo con compresión zstd y el índice por usuario que usa la
+     * migración del historial de lectura.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createArchiveCollection() {
+        try {
+            if (!mongoTemplate.collectionExists(COLLECTION)) {
+                mongoTemplate.getDb().createCollection(COLLECTION, new CreateCollectionOptions()
+                        .storageEngineOptions(new Document("wiredTiger",
+                                new Document("configString", "block_compressor=zstd"))));
+                log.info("Colección de archivo '{}' creada con compresión zstd", COLLECTION);
+            }
+            mongoTemplate.getCollection(COLLECTION).createIndex(Indexes.ascending("user.userId"),
+                    new IndexOptions().name("user_userId"));
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo preparar la colección de archivo de préstamos", ex);
+        }
+    }
+
+    @Scheduled(cron = "${loan-archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Archiva por lotes los préstamos entregados antes del corte.
+     *
+     * @return número de préstamos archivados, o -1 si ya hay un archivado en curso
+     */
+    public long archive() {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().minusMonths(olderThanMonths);
+            long archived = 0;
+            int moved;
+            do {
+                moved = archiveBatch(cutoff);
+                archived += moved;
+            } while (moved == batchSize);
+            if (archived > 0) {
+                log.info("{} préstamos entregados antes de {} movidos a '{}'", archived, cutoff, COLLECTION);
+            }
+            return archived;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int archiveBatch(LocalDate cutoff) {
+        // Fecha de corte con la misma conversión que aplica el convertidor a LocalDate
+        Date before = Date.from(cutoff.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Query query = Query.query(Criteria.where("status").is("Entregado").and("returnDate").lt(before))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(batchSize);
+        List<Document> loans = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Loan.class));
+        if (loans.isEmpty()) {
+            return 0;
+        }
+
+        List<Object> ids = loans.stream().map(loan -> loan.get("_id")).toList();
+        List<String> loanIds = ids.stream().map(Object::toString).toList();
+        Map<String, Integer> perBook = countBy(loans, "book", "bookId");
+        Set<String> bookIds = perBook.keySet();
+
+        copyToArchive(loans);
+
+        // En los libros el $pull y el $inc de archivedLoansCount van en la misma actualización, así
+        // los totales históricos (estadísticas de autores, autocompletado) no bajan al archivar. Si
+        // el lote se repite, el filtro por loans.id ya no coincide y no se cuenta dos veces
+        Document pullLoans = Query.query(Criteria.where("id").in(loanIds)).getQueryObject();
+        pullAndCount(perBook, loanIds, pullLoans);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("loans.id").in(loanIds)),
+                new Update().pull("loans", pullLoans).inc("version", 1), Users.class);
+
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), mongoTemplate.getCollectionName(Loan.class));
+
+        bookIds.forEach(bookId -> {
+            cacheInvalidator.bookDetailChanged(bookId);
+            bookReadModel.refreshAfterCommit(bookId);
+        });
+        meterRegistry.counter("loan_archive.archived").increment(loans.size());
+        return loans.size();
+    }
+
+    private void pullAndCount(Map<String, Integer> counts, List<String> loanIds, Document pullLoans) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class);
+        counts.forEach((id, count) -> bulk.updateOne(
+                Query.query(Criteria.where("id").is(id).and("loans.id").in(loanIds)),
+                new Update().pull("loans", pullLoans).inc("archivedLoansCount", count).inc("version", 1)));
+        bulk.execute();
+    }
+
+    private static Map<String, Integer> countBy(List<Document> loans, String reference, String idField) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        loans.forEach(loan -> {
+            if (loan.get(reference) instanceof Document summary && summary.get(idField) != null) {
+                counts.merge(summary.get(idField).toString(), 1, Integer::sum);
+            }
+        });
+        return counts;
+    }
+
+    private void copyToArchive(List<Document> loans) {
+        Date archivedAt = new Date();
+        loans.forEach(loan -> loan.put("archivedAt", archivedAt));
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertMany(loans, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException ex) {
+            // Un lote interrumpido antes ya había copiado parte de los préstamos
+            boolean onlyDuplicates = ex.getWriteErrors().stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw ex;
+            }
+        }
+    }
+
+    public Optional<Loan> findArchived(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, Loan.class, COLLECTION));
+    }
+
+    public List<Loan> findArchivedByUser(String userId) {
+        return mongoTemplate.find(Query.query(Criteria.where("user.userId").is(userId)), Loan.class, COLLECTION);
+    }
+
+    /**
+     * Mantiene los datos del usuario de los préstamos archivados al día con su perfil.
+     */
+    public void updateArchivedUser(String userId, String fullName, String email, String cardNum) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("user.userId").is(userId)),
+                new Update().set("user.fullName", fullName).set("user.email", email).set("user.cardNum", cardNum),
+                COLLECTION);
+    }
+
+    public void deleteArchivedByUser(String userId) {
+        mongoTemplate.remove(Query.query(Criteria.where("user.userId").is(userId)), COLLECTION);
+    }
+}
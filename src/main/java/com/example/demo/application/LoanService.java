@@ -19,12 +19,13 @@ import com.example.demo.controllers.response.LoanSummaryResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.bson.types.ObjectId;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -37,32 +38,25 @@ public class LoanService {
     private final LoanRepository loanRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
-    private final CacheManager cacheManager;
+    private final CatalogCacheInvalidator cacheInvalidator;
+    private final LeaderboardService leaderboardService;
+    private final RecommendationService recommendationService;
+    private final ReadingHistoryService readingHistoryService;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final TransactionRunner transactionRunner;
+    private final BookReadModelService bookReadModel;
+    private final LoanAnalyticsService loanAnalyticsService;
+    private final LoanArchiveService loanArchiveService;
 
 
-    @Transactional
     public LoanResponse createLoan(LoanRequest request) {
 
-        // Buscar el Libro por id, error si no se encuentra
-        Book book = bookRepository.findById(request.getBookId()).orElseThrow(() -> new BookNotFoundException("Libro no encontrado"));
-
-        // Verifica si el libro ya está prestado, si lo está, no se puede crear otro prestamo hasta que sea entregado
-        if (!book.getAvailable()) {
-            // Buscar el préstamo activo (no entregado) en el libro
-            Book.LoanSummary activeLoan = book.getLoans().stream()
-                    .filter(l -> "Prestado".equals(l.getStatus()) || "Vencido".equals(l.getStatus()))
-                    .findFirst()
-                    .orElse(null);
-
-            LoanSummaryResponse response = mapLoanSummaryToResponse(activeLoan);
-
-            throw new ActiveLoanExistsException("El libro no está disponible para préstamo", response);
-        }
-
         // Buscar el Usuario por id, error si no se encuentra
         Users user = userRepository.findById(request.getUserId()).orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
 
         // especifico que se envie un loanDate
+        // Sin fecha indicada el préstamo ocurre ahora: la analítica recibe el instante exacto
+        Instant loanedAt = request.getLoanDate() == null ? Instant.now() : null;
         LocalDate loanDate = request.getLoanDate() != null ? request.getLoanDate() : LocalDate.now();
         request.setLoanDate(loanDate);
 
@@ -70,37 +64,108 @@ public class LoanService {
         LocalDate expectedReturnDate = request.getExpectedReturnDate() != null ? request.getExpectedReturnDate() : loanDate.plusDays(30);
         request.setExpectedReturnDate(expectedReturnDate);
 
-        // Mapear LoanRequest a la entidad Loan
-        Loan loan = Loan.builder()
+        String branch = request.getBranch() != null && !request.getBranch().isBlank()
+                ? request.getBranch() : LoanAnalyticsService.DEFAULT_BRANCH;
+
+        // El ID se asigna antes de guardar para que el libro reciba la reserva y el resumen del
+        // préstamo en una sola escritura, y la transacción quede en tres escrituras
+        String loanId = new ObjectId().toHexString();
+        Book.LoanSummary bookLoan = Book.LoanSummary.builder()
+                .id(loanId)
+                .loanDate(loanDate)
+                .expectedReturnDate(expectedReturnDate)
                 .status("Prestado")
-                .loanDate(request.getLoanDate())
-                .expectedReturnDate(request.getExpectedReturnDate())
-                .book(createBookSummary(book))
-                .user(createUserSummary(user))
-                .build();
+                .user(Book.UserInfo.builder()
+                        .id(user.getId())
+                        .cardNum(user.getCardNum())
+                        .fullName(user.getFullName())
+                        .build()
+                ).build();
 
-        // Guardar el préstamo
-        Loan savedLoan = loanRepository.save(loan);
+        Loan savedLoan = transactionRunner.execute("loan.create", () -> {
+            // Reservar el libro: marcarlo como no disponible con control de versión, de modo que
+            // dos préstamos simultáneos del mismo libro no puedan tener éxito a la vez
+            Book book = retryExecutor.execute("loan.reserveBook", () -> reserveBook(request.getBookId(), bookLoan));
+
+            // Mapear LoanRequest a la entidad Loan
+            Loan loan = Loan.builder()
+                    .id(loanId)
+                    .status("Prestado")
+                    .loanDate(request.getLoanDate())
+                    .expectedReturnDate(request.getExpectedReturnDate())
+                    .branch(branch)
+                    .book(createBookSummary(book))
+                    .user(createUserSummary(user))
+                    .build();
+
+            Loan saved = saveLoan(loan, book.getId());
+
+            // Crear o actualizar el usuario con la información del prestamo
+            updateUserWithNewLoan(user.getId(), saved);
+
+            cacheInvalidator.bookChanged(book.getId());
+            bookReadModel.refreshAfterCommit(book.getId());
+            TransactionRunner.afterCommit(() -> leaderboardService.onLoan(book));
+            loanAnalyticsService.recordLoan(saved, book.getCategories(), loanedAt);
+            return saved;
+        });
         log.info("Préstamo creado con ID: {}", savedLoan.getId());
 
-        // Limpiar la caché de libros relacionada
-        cacheManager.getCache("books").clear();
-        cacheManager.getCache("booksById").evict(book.getId());
-        cacheManager.getCache("BooksBySearch").clear();
-
-        // crear o actualizar el libro con la información del prestamo
-        // Al crear un nuevo préstamo, el libro ya no está disponible
-        book.setAvailable(false);
-        updateBookWithNewLoan(book, savedLoan);
-
-        // Crear o actualizar el usuario con la información del prestamo
-        updateUserWithNewLoan(user, savedLoan);
+        recommendationService.onInteraction(user.getId(), savedLoan.getBook());
 
 
         //Convertir a DTO y retornar
         return mapToLoanResponse(savedLoan);
     }
 
+    private Book reserveBook(String bookId, Book.LoanSummary loanSummary) {
+        // Buscar el Libro por id, error si no se encuentra
+        Book book = bookRepository.findById(bookId).orElseThrow(() -> new BookNotFoundException("Libro no encontrado"));
+
+        // Verifica si el libro ya está prestado, si lo está, no se puede crear otro prestamo hasta que sea entregado
+        if (!book.getAvailable()) {
+            // Buscar el préstamo activo (no entregado) en el libro
+            Book.LoanSummary activeLoan = book.getLoans().stream()
+                    .filter(l -> "Prestado".equals(l.getStatus()) || "Vencido".equals(l.getStatus()))
+                    .findFirst()
+                    .orElse(null);
+
+            LoanSummaryResponse response = mapLoanSummaryToResponse(activeLoan);
+
+            throw new ActiveLoanExistsException("El libro no está disponible para préstamo", response);
+        }
+
+        // Al crear un nuevo préstamo, el libro ya no está disponible
+        book.setAvailable(false);
+        if (book.getLoans() == null) {
+            book.setLoans(new ArrayList<>());
+        }
+        book.getLoans().add(loanSummary);
+        return bookRepository.save(book);
+    }
+
+    /**
+     * Guarda el préstamo. Dentro de una transacción un fallo la aborta y deshace la reserva; sin
+     * transacciones (mongodb.transactions.enabled=false) se libera el libro manualmente.
+     */
+    private Loan saveLoan(Loan loan, String bookId) {
+        try {
+            return loanRepository.save(loan);
+        } catch (RuntimeException ex) {
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                retryExecutor.run("loan.releaseBook", () -> bookRepository.findById(bookId).ifPresent(current -> {
+                    current.setAvailable(true);
+                    if (current.getLoans() != null) {
+                        current.getLoans().removeIf(summary -> loan.getId().equals(summary.getId()));
+                    }
+                    bookRepository.save(current);
+                }));
+                cacheInvalidator.bookChanged(bookId);
+            }
+            throw ex;
+        }
+    }
+
     private UserSummary createUserSummary(Users user) {
         return UserSummary.builder()
                 .userId(user.getId())
@@ -126,30 +191,7 @@ public class LoanService {
     }
 
 
-    private void updateBookWithNewLoan(Book book, Loan loan) {
-
-        Book.LoanSummary loanSummary = Book.LoanSummary.builder()
-                .id(loan.getId())
-                .loanDate(loan.getLoanDate())
-                .expectedReturnDate(loan.getExpectedReturnDate())
-                .status(loan.getStatus())
-                .returnDate(loan.getReturnDate()) // Asigna la fecha de devolución
-                .user(Book.UserInfo.builder()
-                        .id(loan.getUser().getUserId())
-                        .cardNum(loan.getUser().getCardNum())
-                        .fullName(loan.getUser().getFullName())
-                        .build()
-                ).build();
-
-        if(book.getLoans() == null){
-            book.setLoans(new ArrayList<>());
-        }
-
-        book.getLoans().add(loanSummary);
-        bookRepository.save(book);
-
-    }
-    private void updateUserWithNewLoan(Users user, Loan loan) {
+    private void updateUserWithNewLoan(String userId, Loan loan) {
 
         Users.LoanSummary loanSummary = Users.LoanSummary.builder()
                 .id(loan.getId())
@@ -163,19 +205,27 @@ public class LoanService {
                         .build()
                 ).build();
 
-        if(user.getLoans() == null){
-            user.setLoans(new ArrayList<>());
-        }
+        // El historial completo se guarda por meses; el usuario solo conserva los préstamos recientes.
+        // Se escribe tras el commit: es derivado y su upsert puede chocar con la migración inicial
+        TransactionRunner.afterCommit(() -> readingHistoryService.record(userId, loanSummary));
 
-        user.getLoans().add(loanSummary);
-        userRepository.save(user);
+        retryExecutor.run("loan.updateUser", () -> {
+            Users user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
+            if(user.getLoans() == null){
+                user.setLoans(new ArrayList<>());
+            }
 
+            user.getLoans().add(loanSummary);
+            readingHistoryService.trimRecentLoans(user);
+            userRepository.save(user);
+        });
     }
 
     private LoanResponse mapToLoanResponse(Loan loan) {
         return LoanResponse.builder()
                 .id(loan.getId())
                 .status(loan.getStatus())
+                .branch(loan.getBranch())
                 .loanDate(loan.getLoanDate())
                 .expectedReturnDate(loan.getExpectedReturnDate())
                 .returnDate(loan.getReturnDate())
@@ -216,83 +266,110 @@ public class LoanService {
                 .build();
     }
 
-    @Transactional
     public LoanResponse markAsReturned(String id) {
-        Loan loan = loanRepository.findById(id)
-                .orElseThrow(() -> new LoanNotFoundException("Préstamo no encontrado"));
+        Loan loan = transactionRunner.execute("loan.markReturned", () -> markReturnedInTransaction(id));
+        return mapToLoanResponse(loan);
+    }
+
+    private Loan markReturnedInTransaction(String id) {
+        Loan loan = retryExecutor.execute("loan.markReturned", () -> {
+            Loan current = loanRepository.findById(id)
+                    .orElseThrow(() -> new LoanNotFoundException("Préstamo no encontrado"));
 
-        if ("Prestado".equals(loan.getStatus()) || "Vencido".equals(loan.getStatus())) {
-            loan.setStatus("Entregado");
-            loan.setReturnDate(LocalDate.now());
-            loanRepository.save(loan);
-        } else {
+            if ("Prestado".equals(current.getStatus()) || "Vencido".equals(current.getStatus())) {
+                current.setStatus("Entregado");
+                current.setReturnDate(LocalDate.now());
+                return loanRepository.save(current);
+            }
             throw new InvalidLoanStatusException("Solo se puede actualizar de 'Prestado' o 'Vencido' a 'Entregado'.");
-        }
+        });
 
-        // extrayendo el libro
-        Book book = bookRepository.findById(loan.getBook().getBookId()).orElseThrow(() -> new BookNotFoundException("Libro no encontrado"));
-        // actualizando el estado del prestamo en el libro
-        book.getLoans().stream()
-                .filter(loanSummary -> loanSummary.getId().equals(loan.getId()))
-                .forEach(loanSummary -> {
-                    loanSummary.setStatus("Entregado");
-                    loanSummary.setReturnDate(loan.getReturnDate());
-                });
-        // Al marcar el préstamo como entregado, el libro vuelve a estar disponible
-        book.setAvailable(true);
-        bookRepository.save(book);
+        Book book = retryExecutor.execute("loan.returnBook", () -> {
+            // extrayendo el libro
+            Book current = bookRepository.findById(loan.getBook().getBookId()).orElseThrow(() -> new BookNotFoundException("Libro no encontrado"));
+            // actualizando el estado del prestamo en el libro
+            current.getLoans().stream()
+                    .filter(loanSummary -> loanSummary.getId().equals(loan.getId()))
+                    .forEach(loanSummary -> {
+                        loanSummary.setStatus("Entregado");
+                        loanSummary.setReturnDate(loan.getReturnDate());
+                    });
+            // Al marcar el préstamo como entregado, el libro vuelve a estar disponible
+            current.setAvailable(true);
+            return bookRepository.save(current);
+        });
 
         // Limpiar la caché de libros relacionada
-        cacheManager.getCache("books").clear();
-        cacheManager.getCache("booksById").evict(book.getId());
-        cacheManager.getCache("BooksBySearch").clear();
-
-        // extrayendo el usuario
-        Users user = userRepository.findById(loan.getUser().getUserId()).orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
-        // actualizando el estado y la fecha de devolución en el préstamo del usuario
-        user.getLoans().stream()
-                .filter(loanSummary -> loanSummary.getId().equals(loan.getId()))
-                .forEach(loanSummary -> {
-                    loanSummary.setStatus("Entregado");
-                    loanSummary.setReturnDate(loan.getReturnDate());
-                });
-        userRepository.save(user);
+        cacheInvalidator.bookChanged(book.getId());
+        bookReadModel.refreshAfterCommit(book.getId());
+        loanAnalyticsService.recordReturn(loan, book.getCategories(), Instant.now());
+
+        Users user = retryExecutor.execute("loan.returnUser", () -> {
+            // extrayendo el usuario
+            Users current = userRepository.findById(loan.getUser().getUserId()).orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
+            // actualizando el estado y la fecha de devolución en el préstamo del usuario
+            current.getLoans().stream()
+                    .filter(loanSummary -> loanSummary.getId().equals(loan.getId()))
+                    .forEach(loanSummary -> {
+                        loanSummary.setStatus("Entregado");
+                        loanSummary.setReturnDate(loan.getReturnDate());
+                    });
+            return userRepository.save(current);
+        });
 
-        return mapToLoanResponse(loan);
+        Users.LoanSummary returned = Users.LoanSummary.builder()
+                .id(loan.getId())
+                .loanDate(loan.getLoanDate())
+                .status(loan.getStatus())
+                .returnDate(loan.getReturnDate())
+                .build();
+        TransactionRunner.afterCommit(() -> readingHistoryService.markReturned(user.getId(), returned));
+
+        return loan;
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Préstamo por ID; los préstamos entregados hace tiempo se buscan en el archivo.
+     */
     @Cacheable(value = "loansById")
     public LoanResponse getLoanById(String id) {
         return loanRepository.findById(id)
+                .or(() -> loanArchiveService.findArchived(id))
                 .map(this::mapToLoanResponse)
                 .orElseThrow(() -> new LoanNotFoundException("Préstamo no encontrado con ID: " + id));
     }
 
-    @Transactional
     @CacheEvict(value = "loansById", key = "#id")
     public void deleteLoan(String id) {
+        transactionRunner.run("loan.delete", () -> deleteLoanInTransaction(id));
+    }
+
+    private void deleteLoanInTransaction(String id) {
         // Buscar el préstamo
         Loan loan = loanRepository.findById(id)
                 .orElseThrow(() -> new LoanNotFoundException("No se puede eliminar. Préstamo no encontrado con ID: " + id));
 
         // Eliminar la referencia del préstamo en el usuario
-        userRepository.findById(loan.getUser().getUserId()).ifPresent(user -> {
+        retryExecutor.run("loan.deleteFromUser", () -> userRepository.findById(loan.getUser().getUserId()).ifPresent(user -> {
             if (user.getLoans() != null) {
                 user.getLoans().removeIf(summary -> summary.getId().equals(id));
                 userRepository.save(user);
                 log.info("Préstamo '{}' eliminado del usuario '{}'", id, user.getFullName());
             }
-        });
+        }));
+
+        TransactionRunner.afterCommit(() -> readingHistoryService.remove(loan.getUser().getUserId(), id, loan.getLoanDate()));
 
         // Eliminar la referencia del préstamo en el libro
-        bookRepository.findById(loan.getBook().getBookId()).ifPresent(book -> {
+        retryExecutor.run("loan.deleteFromBook", () -> bookRepository.findById(loan.getBook().getBookId()).ifPresent(book -> {
             if (book.getLoans() != null) {
                 book.getLoans().removeIf(summary -> summary.getId().equals(id));
                 bookRepository.save(book);
                 log.info("Préstamo '{}' eliminado del libro '{}'", id, book.getTitle());
             }
-        });
+        }));
+        cacheInvalidator.bookDetailChanged(loan.getBook().getBookId());
+        bookReadModel.refreshAfterCommit(loan.getBook().getBookId());
 
         // Eliminar el préstamo de la base de datos
         loanRepository.delete(loan);
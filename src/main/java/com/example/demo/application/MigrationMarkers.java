@@ -0,0 +1,35 @@
+package com.example.demo.application;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Registro de las migraciones de datos ya aplicadas (colección "migraciones", un documento por
+ * migración). Permite que una migración recorra las colecciones una sola vez y no en cada arranque.
+ */
+@Component
+@RequiredArgsConstructor
+public class MigrationMarkers {
+
+    static final String COLLECTION = "migraciones";
+
+    private final MongoTemplate mongoTemplate;
+
+    public boolean isApplied(String migration) {
+        return mongoTemplate.exists(byId(migration), COLLECTION);
+    }
+
+    public void markApplied(String migration) {
+        mongoTemplate.upsert(byId(migration), new Update().setOnInsert("appliedAt", Instant.now()), COLLECTION);
+    }
+
+    private static Query byId(String migration) {
+        return Query.query(Criteria.where("_id").is(migration));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.application;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tamaño del pool de conexiones y tiempos de espera del cliente de MongoDB. Los valores
+ * de la URI se aplican antes; estos los sustituyen.
+ *
+ * Además de las métricas estándar del pool (mongodb.driver.pool.*), se publican
+ * mongodb.pool.saturation (fracción del pool en uso en el servidor más cargado) y
+ * mongodb.pool.checkout.timeouts (peticiones que agotaron maxWaitTime esperando conexión).
+ */
+@Configuration
+public class MongoClientTuning {
+
+    @Bean
+    MongoClientSettingsBuilderCustomizer mongoClientTuningCustomizer(
+            MeterRegistry meterRegistry,
+            @Value("${mongodb.pool.max-size:50}") int maxSize,
+            @Value("${mongodb.pool.min-size:5}") int minSize,
+            @Value("${mongodb.pool.max-connecting:4}") int maxConnecting,
+            @Value("${mongodb.pool.max-wait-time:PT2S}") Duration maxWaitTime,
+            @Value("${mongodb.pool.max-idle-time:PT5M}") Duration maxIdleTime,
+            @Value("${mongodb.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${mongodb.read-timeout:PT15S}") Duration readTimeout,
+            @Value("${mongodb.server-selection-timeout:PT5S}") Duration serverSelectionTimeout) {
+        PoolSaturationListener saturation = new PoolSaturationListener(meterRegistry, maxSize);
+        return builder -> builder
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(maxSize)
+                        .minSize(minSize)
+                        .maxConnecting(maxConnecting)
+                        .maxWaitTime(maxWaitTime.toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(maxIdleTime.toMillis(), TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(saturation))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(connectTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout(readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(serverSelectionTimeout.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    static final class PoolSaturationListener implements ConnectionPoolListener {
+
+        private final int maxSize;
+        private final Map<ServerId, AtomicInteger> inUse = new ConcurrentHashMap<>();
+        private final Counter checkoutTimeouts;
+
+        PoolSaturationListener(MeterRegistry registry, int maxSize) {
+            this.maxSize = maxSize;
+            this.checkoutTimeouts = Counter.builder("mongodb.pool.checkout.timeouts")
+                    .description("Esperas de conexión que superaron maxWaitTime")
+                    .register(registry);
+            Gauge.builder("mongodb.pool.saturation", this, PoolSaturationListener::saturation)
+                    .description("Fracción del pool en uso en el servidor más cargado")
+                    .register(registry);
+        }
+
+        @Override
+        public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+            inUse.computeIfAbsent(event.getConnectionId().getServerId(), id -> new AtomicInteger()).incrementAndGet();
+        }
+
+        @Override
+        public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+            AtomicInteger count = inUse.get(event.getConnectionId().getServerId());
+            if (count != null) {
+                count.updateAndGet(value -> Math.max(0, value - 1));
+            }
+        }
+
+        @Override
+        public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+            if (event.getReason() == ConnectionCheckOutFailedEvent.Reason.TIMEOUT) {
+                checkoutTimeouts.increment();
+            }
+        }
+
+        private double saturation() {
+            int busiest = inUse.values().stream().mapToInt(AtomicInteger::get).max().orElse(0);
+            return maxSize == 0 ? 0 : (double) busiest / maxSize;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.application;
+
+import com.mongodb.MongoException;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.TransactionOptions;
+import com.mongodb.WriteConcern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Gestor de transacciones de MongoDB. Sin este bean las anotaciones @Transactional no tenían
+ * efecto y una falla a mitad de un préstamo dejaba Loan, Book y Users inconsistentes.
+ *
+ * Requiere un replica set (o clúster); con mongodb.transactions.enabled=false se vuelve al modo
+ * sin transacciones, por ejemplo para un mongod independiente o para comparar latencias.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mongodb.transactions.enabled", havingValue = "true", matchIfMissing = true)
+public class MongoTransactionConfig {
+
+    @Bean
+    MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory,
+                                               @Value("${mongodb.transactions.commit-retries:3}") int commitRetries) {
+        TransactionOptions options = TransactionOptions.builder()
+                .readPreference(ReadPreference.primary())
+                .readConcern(ReadConcern.MAJORITY)
+                .writeConcern(WriteConcern.MAJORITY)
+                .build();
+        return new RetryingMongoTransactionManager(databaseFactory, options, commitRetries);
+    }
+
+    /**
+     * Reintenta el commit cuando el servidor responde UnknownTransactionCommitResult (por ejemplo,
+     * tras una elección de primario): el commit es idempotente y repetirlo es seguro.
+     */
+    @Slf4j
+    static class RetryingMongoTransactionManager extends MongoTransactionManager {
+
+        private final int commitRetries;
+
+        RetryingMongoTransactionManager(MongoDatabaseFactory databaseFactory, TransactionOptions options, int commitRetries) {
+            super(databaseFactory, options);
+            this.commitRetries = Math.max(1, commitRetries);
+        }
+
+        @Override
+        protected void doCommit(MongoTransactionObject transactionObject) throws Exception {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    transactionObject.commitTransaction();
+                    return;
+                } catch (MongoException ex) {
+                    if (!ex.hasErrorLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL) || attempt >= commitRetries) {
+                        throw ex;
+                    }
+                    log.debug("Resultado de commit desconocido, reintento {} de {}", attempt, commitRetries);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.Model.BookSummary;
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.response.PageResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Feed de novedades: los libros publicados más recientemente (desempatando por fecha de alta
+ * en el catálogo), mantenido en memoria con un tamaño máximo. Se carga desde el índice de
+ * publicationDate y se actualiza a medida que se crean, editan o eliminan libros.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NewReleasesService {
+
+    private static final Comparator<Release> ORDER = Comparator
+            .comparing(Release::publicationDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Release::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(release -> release.summary().getBookId());
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${new-releases.window-days:365}")
+    private int windowDays;
+
+    @Value("${new-releases.capacity:500}")
+    private int capacity;
+
+    // Se reemplaza completo al recargar: los lectores nunca ven un feed a medio cargar
+    private volatile Feed feed = new Feed();
+
+    // Cambios recibidos mientras se carga un feed nuevo; null si no hay recarga en curso
+    private List<Consumer<Feed>> changedDuringRefresh;
+
+    /**
+     * Carga el feed fuera del lock. Los altas, ediciones y bajas que llegan durante la carga se
+     * aplican al feed actual y se repiten sobre el nuevo antes de publicarlo.
+     */
+    @Scheduled(fixedDelayString = "${new-releases.refresh-interval-ms:3600000}")
+    public void refresh() {
+        synchronized (this) {
+            if (changedDuringRefresh != null) {
+                return;
+            }
+            changedDuringRefresh = new ArrayList<>();
+        }
+        try {
+            Query query = new Query(Criteria.where("publicationDate").gte(windowStart()))
+                    .with(Sort.by(Sort.Direction.DESC, "publicationDate", "createdAt"))
+                    .limit(capacity);
+            query.fields().include("title", "coverImageUrl", "averageRating", "publicationDate", "createdAt");
+
+            List<Book> books = mongoTemplate.find(query, Book.class);
+            Feed loaded = new Feed();
+            books.forEach(book -> add(loaded, book));
+            synchronized (this) {
+                changedDuringRefresh.forEach(change -> change.accept(loaded));
+                feed = loaded;
+            }
+            log.info("Feed de novedades cargado con {} libros", books.size());
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo cargar el feed de novedades", ex);
+        } finally {
+            synchronized (this) {
+                changedDuringRefresh = null;
+            }
+        }
+    }
+
+    public PageResponse<BookSummary> getNewReleases(int page, int size) {
+        Feed current = feed;
+        List<BookSummary> content = current.releases.stream()
+                .skip((long) page * size)
+                .limit(size)
+                .map(Release::summary)
+                .toList();
+        return PageResponse.of(content, page, size, current.byBook.size());
+    }
+
+    public synchronized void onBookChanged(Book book) {
+        apply(target -> {
+            remove(target, book.getId());
+            if (book.getPublicationDate() != null && !book.getPublicationDate().isBefore(windowStart())) {
+                add(target, book);
+            }
+        });
+    }
+
+    public synchronized void onBookDeleted(String bookId) {
+        apply(target -> remove(target, bookId));
+    }
+
+    // Llamado con el lock tomado
+    private void apply(Consumer<Feed> change) {
+        change.accept(feed);
+        if (changedDuringRefresh != null) {
+            changedDuringRefresh.add(change);
+        }
+    }
+
+    private void add(Feed target, Book book) {
+        Release release = new Release(BookSummary.builder()
+                .bookId(book.getId())
+                .title(book.getTitle())
+                .coverImageUrl(book.getCoverImageUrl())
+                .averageRating(book.getAverageRating())
+                .publicationDate(book.getPublicationDate())
+                .build(), book.getPublicationDate(), book.getCreatedAt());
+        target.byBook.put(book.getId(), release);
+        target.releases.add(release);
+
+        // Mantener el feed acotado descartando los libros más antiguos
+        while (target.byBook.size() > capacity) {
+            Release oldest = target.releases.pollLast();
+            if (oldest == null) {
+                break;
+            }
+            target.byBook.remove(oldest.summary().getBookId());
+        }
+    }
+
+    private void remove(Feed target, String bookId) {
+        Release previous = target.byBook.remove(bookId);
+        if (previous != null) {
+            target.releases.remove(previous);
+        }
+    }
+
+    private LocalDate windowStart() {
+        return LocalDate.now().minusDays(windowDays);
+    }
+
+    private static final class Feed {
+        private final ConcurrentSkipListSet<Release> releases = new ConcurrentSkipListSet<>(ORDER);
+        private final Map<String, Release> byBook = new ConcurrentHashMap<>();
+    }
+
+    private record Release(BookSummary summary, LocalDate publicationDate, LocalDateTime createdAt) {
+    }
+}
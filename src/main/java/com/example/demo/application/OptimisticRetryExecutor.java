@@ -0,0 +1,89 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.exception.ConcurrentUpdateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reintenta operaciones de lectura-modificación-escritura cuando fallan por un conflicto de
+ * versión (@Version). Cada intento debe volver a leer el documento; entre intentos se espera
+ * un tiempo aleatorio con crecimiento exponencial (full jitter) para no repetir la colisión.
+ *
+ * Dentro de una transacción no se reintenta: el conflicto ya abortó la transacción completa y
+ * es {@link TransactionRunner} quien la repite desde el principio.
+ *
+ * Métricas: concurrency.conflicts (conflictos detectados), concurrency.retries.exhausted
+ * (operaciones que agotaron los intentos), ambas con la etiqueta "operation".
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OptimisticRetryExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${concurrency.retry.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${concurrency.retry.base-backoff-ms:10}")
+    private long baseBackoffMs = 10;
+
+    @Value("${concurrency.retry.max-backoff-ms:200}")
+    private long maxBackoffMs = 200;
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException ex) {
+                conflicts(operation).increment();
+                if (attempt >= maxAttempts) {
+                    exhausted(operation).increment();
+                    log.warn("Conflicto de concurrencia en '{}' tras {} intentos", operation, attempt);
+                    throw new ConcurrentUpdateException(
+                            "El recurso fue modificado por otra operación, intente de nuevo", ex);
+                }
+                log.debug("Conflicto de versión en '{}', intento {} de {}", operation, attempt, maxAttempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Reintento interrumpido", ex);
+        }
+    }
+
+    private Counter conflicts(String operation) {
+        return meterRegistry.counter("concurrency.conflicts", "operation", operation);
+    }
+
+    private Counter exhausted(String operation) {
+        return meterRegistry.counter("concurrency.retries.exhausted", "operation", operation);
+    }
+}
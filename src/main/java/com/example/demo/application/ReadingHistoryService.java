@@ -0,0 +1,290 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Loan;
+import com.example.demo.controllers.domain.entity.ReadingHistory;
+import com.example.demo.controllers.domain.entity.Users;
+import com.example.demo.controllers.domain.repository.LoanRepository;
+import com.example.demo.controllers.response.LoanSummaryResponse;
+import com.example.demo.controllers.response.PageResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historial de lectura por usuario en documentos mensuales ({@link ReadingHistory}).
+ * El usuario solo conserva una ventana acotada de préstamos recientes; el historial
+ * completo se consulta paginado desde aquí.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReadingHistoryService {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final Comparator<Users.LoanSummary> NEWEST_FIRST = Comparator.comparing(
+            Users.LoanSummary::getLoanDate, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final MongoTemplate mongoTemplate;
+    private final LoanRepository loanRepository;
+    private final DataAccessProfile dataAccessProfile;
+    private final LoanArchiveService loanArchiveService;
+
+    @Value("${reading-history.recent-loans:20}")
+    private int recentLoans;
+
+    @Value("${reading-history.migrated-cache-size:100000}")
+    private int migratedCacheSize = 100000;
+
+    // Usuarios cuyo historial ya existe: evita consultar la colección en cada préstamo
+    private final Set<String> migratedUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Agrega un préstamo al documento del mes correspondiente (lo crea si no existe).
+     */
+    public void record(String userId, Users.LoanSummary loan) {
+        // Si es el primer acceso al historial, la migración ya incluye este préstamo
+        if (backfillIfMissing(userId)) {
+            return;
+        }
+        String month = monthOf(loan.getLoanDate());
+        Update update = new Update()
+                .setOnInsert("userId", userId)
+                .setOnInsert("month", month)
+                .push("loans", loan)
+                .inc("count", 1);
+        mongoTemplate.upsert(Query.query(Criteria.where("id").is(bucketId(userId, month))), update, ReadingHistory.class);
+    }
+
+    public void markReturned(String userId, Users.LoanSummary loan) {
+        Query query = Query.query(Criteria.where("id").is(bucketId(userId, monthOf(loan.getLoanDate())))
+                .and("loans.id").is(loan.getId()));
+        Update update = new Update()
+                .set("loans.$.status", loan.getStatus())
+                .set("loans.$.returnDate", loan.getReturnDate());
+        mongoTemplate.updateFirst(query, update, ReadingHistory.class);
+    }
+
+    public void remove(String userId, String loanId, LocalDate loanDate) {
+        Query query = Query.query(Criteria.where("id").is(bucketId(userId, monthOf(loanDate)))
+                .and("loans.id").is(loanId));
+        Update update = new Update()
+                .pull("loans", Query.query(Criteria.where("id").is(loanId)).getQueryObject())
+                .inc("count", -1);
+        mongoTemplate.updateFirst(query, update, ReadingHistory.class);
+    }
+
+    public void deleteHistory(String userId) {
+        migratedUsers.remove(userId);
+        mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId)), ReadingHistory.class);
+    }
+
+    /**
+     * Página del historial (más recientes primero) entre dos meses opcionales. Solo se leen
+     * los documentos mensuales que contienen la página solicitada.
+     */
+    public PageResponse<LoanSummaryResponse> getHistory(String userId, YearMonth from, YearMonth to, int page, int size) {
+        backfillIfMissing(userId);
+
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (from != null || to != null) {
+            Criteria month = Criteria.where("month");
+            if (from != null) {
+                month.gte(from.toString());
+            }
+            if (to != null) {
+                month.lte(to.toString());
+            }
+            criteria = new Criteria().andOperator(criteria, month);
+        }
+
+        Query metadataQuery = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "month"));
+        metadataQuery.fields().include("count");
+        List<ReadingHistory> buckets = mongoTemplate.find(dataAccessProfile.budgeted(metadataQuery), ReadingHistory.class);
+
+        long total = buckets.stream().mapToLong(ReadingHistory::getCount).sum();
+        long offset = (long) page * size;
+
+        // Determinar qué meses cubren la página y cuántos elementos saltar en el primero
+        Map<String, Long> needed = new LinkedHashMap<>();
+        long position = 0;
+        for (ReadingHistory bucket : buckets) {
+            long bucketEnd = position + bucket.getCount();
+            if (bucketEnd > offset && position < offset + size) {
+                needed.put(bucket.getId(), Math.max(0, offset - position));
+            }
+            if (bucketEnd >= offset + size) {
+                break;
+            }
+            position = bucketEnd;
+        }
+
+        List<LoanSummaryResponse> content = new ArrayList<>(size);
+        if (!needed.isEmpty()) {
+            Map<String, ReadingHistory> loaded = new LinkedHashMap<>();
+            mongoTemplate.find(dataAccessProfile.budgeted(Query.query(Criteria.where("id").in(needed.keySet()))), ReadingHistory.class)
+                    .forEach(bucket -> loaded.put(bucket.getId(), bucket));
+
+            for (Map.Entry<String, Long> entry : needed.entrySet()) {
+                ReadingHistory bucket = loaded.get(entry.getKey());
+                if (bucket == null) {
+                    continue;
+                }
+                bucket.getLoans().stream()
+                        .sorted(NEWEST_FIRST)
+                        .skip(entry.getValue())
+                        .limit(size - content.size())
+                        .map(ReadingHistoryService::mapToResponse)
+                        .forEach(content::add);
+                if (content.size() >= size) {
+                    break;
+                }
+            }
+        }
+        return PageResponse.of(content, page, size, total);
+    }
+
+    /**
+     * Conserva en el usuario solo los préstamos más recientes. Solo se descartan préstamos ya
+     * entregados (los más antiguos primero): los activos ("Prestado", "Vencido") se conservan
+     * aunque superen el límite.
+     */
+    public void trimRecentLoans(Users user) {
+        if (user.getLoans() != null && user.getLoans().size() > recentLoans) {
+            user.setLoans(recentWindow(user.getLoans()));
+        }
+    }
+
+    /**
+     * Ventana de préstamos recientes que se devuelve en el perfil del usuario, con el mismo
+     * criterio que {@link #trimRecentLoans(Users)}.
+     */
+    public List<Users.LoanSummary> recentWindow(List<Users.LoanSummary> loans) {
+        if (loans == null || loans.size() <= recentLoans) {
+            return loans;
+        }
+        int removable = loans.size() - recentLoans;
+        List<Users.LoanSummary> kept = new ArrayList<>(loans.size());
+        for (Users.LoanSummary loan : loans) {
+            if (removable > 0 && "Entregado".equals(loan.getStatus())) {
+                removable--;
+            } else {
+                kept.add(loan);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Genera los documentos mensuales a partir de la colección de préstamos (y de su archivo)
+     * la primera vez que se usa el historial de un usuario.
+     *
+     * @return true si se realizó la migración
+     */
+    private boolean backfillIfMissing(String userId) {
+        if (migratedUsers.contains(userId)) {
+            return false;
+        }
+        if (mongoTemplate.exists(Query.query(Criteria.where("userId").is(userId)), ReadingHistory.class)) {
+            markMigrated(userId);
+            return false;
+        }
+
+        List<Loan> loans = new ArrayList<>(loanRepository.findByUser_UserId(userId));
+        loans.addAll(loanArchiveService.findArchivedByUser(userId));
+
+        Map<String, ReadingHistory> buckets = new LinkedHashMap<>();
+        for (Loan loan : loans) {
+            String month = monthOf(loan.getLoanDate());
+            ReadingHistory bucket = buckets.computeIfAbsent(month, key -> ReadingHistory.builder()
+                    .id(bucketId(userId, key))
+                    .userId(userId)
+                    .month(key)
+                    .build());
+            bucket.getLoans().add(toLoanSummary(loan));
+            bucket.setCount(bucket.getLoans().size());
+        }
+        if (buckets.isEmpty()) {
+            return false;
+        }
+
+        // Sin orden: un mes que ya insertó otra petición no impide insertar los demás
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReadingHistory.class)
+                    .insert(new ArrayList<>(buckets.values()))
+                    .execute();
+            log.info("Historial de lectura migrado para el usuario {}: {} meses", userId, buckets.size());
+        } catch (BulkOperationException ex) {
+            if (ex.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw ex;
+            }
+            log.debug("Parte del historial del usuario {} ya fue migrada por otra petición", userId);
+        }
+        markMigrated(userId);
+        return true;
+    }
+
+    private void markMigrated(String userId) {
+        if (migratedUsers.size() >= migratedCacheSize) {
+            // Volver a comprobarlo solo cuesta una consulta por usuario
+            migratedUsers.clear();
+        }
+        migratedUsers.add(userId);
+    }
+
+    private static Users.LoanSummary toLoanSummary(Loan loan) {
+        return Users.LoanSummary.builder()
+                .id(loan.getId())
+                .loanDate(loan.getLoanDate())
+                .expectedReturnDate(loan.getExpectedReturnDate())
+                .returnDate(loan.getReturnDate())
+                .status(loan.getStatus())
+                .book(loan.getBook() != null ? Users.BookInfo.builder()
+                        .id(loan.getBook().getBookId())
+                        .title(loan.getBook().getTitle())
+                        .coverImageUrl(loan.getBook().getCoverImageUrl())
+                        .build() : null)
+                .build();
+    }
+
+    private static LoanSummaryResponse mapToResponse(Users.LoanSummary loan) {
+        return LoanSummaryResponse.builder()
+                .id(loan.getId())
+                .loanDate(loan.getLoanDate())
+                .expectedReturnDate(loan.getExpectedReturnDate())
+                .returnDate(loan.getReturnDate())
+                .status(loan.getStatus())
+                .book(loan.getBook() != null ? LoanSummaryResponse.BookInfoResponse.builder()
+                        .id(loan.getBook().getId())
+                        .title(loan.getBook().getTitle())
+                        .coverImageUrl(loan.getBook().getCoverImageUrl())
+                        .build() : null)
+                .build();
+    }
+
+    private static String monthOf(LocalDate date) {
+        return YearMonth.from(date != null ? date : LocalDate.now()).toString();
+    }
+
+    private static String bucketId(String userId, String month) {
+        return userId + ":" + month;
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.Model.BookSummary;
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.Loan;
+import com.example.demo.controllers.domain.entity.Review;
+import com.example.demo.controllers.domain.entity.Users;
+import com.example.demo.controllers.exception.BookNotFoundException;
+import com.example.demo.controllers.response.RecommendationResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Recomendaciones ítem a ítem ("lectores que tomaron X también tomaron Y").
+ *
+ * Un proceso por lotes recorre préstamos, favoritos y reseñas positivas, cuenta las co-ocurrencias
+ * entre libros de un mismo lector con estructuras de enteros (sin objetos por par de libros) y guarda
+ * los K vecinos más similares (similitud coseno) de cada libro. Las consultas se responden desde memoria
+ * y los préstamos y favoritos nuevos actualizan las filas afectadas de forma incremental.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${recommendations.neighbours:20}")
+    private int neighbours;
+
+    @Value("${recommendations.max-items-per-user:500}")
+    private int maxItemsPerUser;
+
+    @Value("${recommendations.min-positive-rating:4}")
+    private int minPositiveRating;
+
+    private volatile Model model = new Model();
+
+    // Eventos recibidos mientras se carga un modelo nuevo; null si no hay reconstrucción en curso
+    private List<Consumer<Model>> changedDuringRebuild;
+
+    /**
+     * Carga y calcula un modelo nuevo fuera del lock. Los préstamos, favoritos y borrados que llegan
+     * mientras tanto se aplican al modelo actual y se repiten sobre el nuevo antes de publicarlo;
+     * una interacción que la carga ya leyó no se cuenta dos veces (addInteraction la ignora).
+     */
+    @Scheduled(fixedDelayString = "${recommendations.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                return;
+            }
+            changedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Model rebuilt = new Model();
+            loadInteractions(rebuilt);
+            for (int item = 0; item < rebuilt.size(); item++) {
+                String bookId = rebuilt.bookIds.get(item);
+                // Los libros borrados siguen en la matriz (sus lectores cuentan) pero no tienen lista
+                if (!rebuilt.deleted.contains(bookId)) {
+                    rebuilt.recommendations.put(bookId, rebuilt.topNeighbours(item, neighbours));
+                }
+            }
+
+            synchronized (this) {
+                changedDuringRebuild.forEach(change -> change.accept(rebuilt));
+                model = rebuilt;
+            }
+            log.info("Recomendaciones recalculadas para {} libros y {} lectores en {} ms",
+                    rebuilt.size(), rebuilt.userItems.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron recalcular las recomendaciones", ex);
+        } finally {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    public List<RecommendationResponse> getRecommendations(String bookId, int limit) {
+        Model current = model;
+        if (current.deleted.contains(bookId)) {
+            throw new BookNotFoundException("Libro no encontrado con ID: " + bookId);
+        }
+        List<RecommendationResponse> recommendations = current.recommendations.getOrDefault(bookId, Collections.emptyList());
+        return recommendations.size() > limit ? recommendations.subList(0, limit) : recommendations;
+    }
+
+    /**
+     * Registra una interacción nueva (préstamo o favorito) y recalcula los vecinos del libro
+     * y de los demás libros del mismo lector.
+     */
+    public synchronized void onInteraction(String userId, BookSummary book) {
+        if (userId == null || book == null || book.getBookId() == null) {
+            return;
+        }
+        apply(current -> applyInteraction(current, userId, book));
+    }
+
+    /**
+     * Quita el libro de las recomendaciones: su propia lista y las listas de los libros con los que
+     * comparte lectores, que se recalculan sin él.
+     */
+    public synchronized void onBookDeleted(String bookId) {
+        apply(current -> applyBookDeleted(current, bookId));
+    }
+
+    // Llamado con el lock tomado
+    private void apply(Consumer<Model> change) {
+        change.accept(model);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(change);
+        }
+    }
+
+    private void applyInteraction(Model current, String userId, BookSummary book) {
+        if (current.deleted.contains(book.getBookId())) {
+            return;
+        }
+        int item = current.index(book.getBookId(), book.getTitle(), book.getCoverImageUrl());
+        int[] touched = current.addInteraction(userId, item, maxItemsPerUser);
+        if (touched == null) {
+            return;
+        }
+        current.recommendations.put(book.getBookId(), current.topNeighbours(item, neighbours));
+        for (int other : touched) {
+            current.recommendations.put(current.bookIds.get(other), current.topNeighbours(other, neighbours));
+        }
+    }
+
+    private void applyBookDeleted(Model current, String bookId) {
+        current.deleted.add(bookId);
+        current.recommendations.remove(bookId);
+        Integer item = current.indexByBook.get(bookId);
+        if (item == null) {
+            return;
+        }
+        IntIntMap row = current.rows[item];
+        for (int slot = 0; slot < row.capacity(); slot++) {
+            int other = row.keyAt(slot);
+            if (other >= 0 && !current.deleted.contains(current.bookIds.get(other))) {
+                current.recommendations.put(current.bookIds.get(other), current.topNeighbours(other, neighbours));
+            }
+        }
+    }
+
+    private void loadInteractions(Model target) {
+        Map<String, IntList> interactions = new HashMap<>();
+
+        // Préstamos vigentes y archivados: archivar no debe borrar co-ocurrencias
+        for (String collection : List.of(mongoTemplate.getCollectionName(Loan.class), LoanArchiveService.COLLECTION)) {
+            Query loansQuery = new Query();
+            loansQuery.fields().include("user.userId", "book.bookId", "book.title", "book.coverImageUrl");
+            try (Stream<Loan> loans = mongoTemplate.stream(loansQuery, Loan.class, collection)) {
+                loans.filter(loan -> loan.getUser() != null && loan.getBook() != null)
+                        .forEach(loan -> collect(target, interactions, loan.getUser().getUserId(), loan.getBook()));
+            }
+        }
+
+        Query favoritesQuery = new Query(Criteria.where("favorites.0").exists(true));
+        favoritesQuery.fields().include("favorites");
+        try (Stream<Users> users = mongoTemplate.stream(favoritesQuery, Users.class)) {
+            users.forEach(user -> user.getFavorites()
+                    .forEach(favorite -> collect(target, interactions, user.getId(), favorite)));
+        }
+
+        Query reviewsQuery = new Query(Criteria.where("rating").gte(minPositiveRating));
+        reviewsQuery.fields().include("user.userId", "book.bookId", "book.title", "book.coverImageUrl");
+        try (Stream<Review> reviews = mongoTemplate.stream(reviewsQuery, Review.class)) {
+            reviews.filter(review -> review.getUser() != null && review.getBook() != null)
+                    .forEach(review -> collect(target, interactions, review.getUser().getUserId(), review.getBook()));
+        }
+
+        interactions.forEach((userId, items) -> target.addUser(userId, items.sortedUnique(maxItemsPerUser)));
+
+        // Los préstamos y reseñas de libros eliminados se conservan: esos libros no se recomiendan
+        Set<String> existing = new HashSet<>();
+        Query booksQuery = new Query();
+        booksQuery.fields().include("id");
+        try (Stream<Book> books = mongoTemplate.stream(booksQuery, Book.class)) {
+            books.forEach(book -> existing.add(book.getId()));
+        }
+        target.bookIds.stream().filter(bookId -> !existing.contains(bookId)).forEach(target.deleted::add);
+    }
+
+    private static void collect(Model target, Map<String, IntList> interactions, String userId, BookSummary book) {
+        if (userId == null || book.getBookId() == null) {
+            return;
+        }
+        int item = target.index(book.getBookId(), book.getTitle(), book.getCoverImageUrl());
+        interactions.computeIfAbsent(userId, id -> new IntList()).add(item);
+    }
+
+    /**
+     * Matriz dispersa de co-ocurrencias: cada libro tiene un índice entero y una fila
+     * {@link IntIntMap} con el número de lectores compartidos con cada otro libro.
+     */
+    private static final class Model {
+        private final Map<String, Integer> indexByBook = new HashMap<>();
+        private final List<String> bookIds = new ArrayList<>();
+        private final List<String> titles = new ArrayList<>();
+        private final List<String> covers = new ArrayList<>();
+        private final Map<String, int[]> userItems = new HashMap<>();
+        // Se lee sin lock desde las peticiones
+        private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+        private final Map<String, List<RecommendationResponse>> recommendations = new ConcurrentHashMap<>();
+        private int[] itemUsers = new int[64];
+        private IntIntMap[] rows = new IntIntMap[64];
+
+        private int size() {
+            return bookIds.size();
+        }
+
+        private int index(String bookId, String title, String coverImageUrl) {
+            Integer existing = indexByBook.get(bookId);
+            if (existing != null) {
+                return existing;
+            }
+            int item = bookIds.size();
+            indexByBook.put(bookId, item);
+            bookIds.add(bookId);
+            titles.add(title);
+            covers.add(coverImageUrl);
+            if (item >= rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+                itemUsers = Arrays.copyOf(itemUsers, itemUsers.length * 2);
+            }
+            rows[item] = new IntIntMap(8);
+            return item;
+        }
+
+        private void addUser(String userId, int[] items) {
+            userItems.put(userId, items);
+            for (int i = 0; i < items.length; i++) {
+                itemUsers[items[i]]++;
+                for (int j = i + 1; j < items.length; j++) {
+                    rows[items[i]].increment(items[j]);
+                    rows[items[j]].increment(items[i]);
+                }
+            }
+        }
+
+        /**
+         * @return los demás libros del lector cuyas filas cambiaron, o null si la interacción ya existía
+         */
+        private int[] addInteraction(String userId, int item, int maxItemsPerUser) {
+            int[] items = userItems.getOrDefault(userId, new int[0]);
+            if (Arrays.binarySearch(items, item) >= 0 || items.length >= maxItemsPerUser) {
+                return null;
+            }
+            itemUsers[item]++;
+            for (int other : items) {
+                rows[item].increment(other);
+                rows[other].increment(item);
+            }
+            int[] updated = Arrays.copyOf(items, items.length + 1);
+            updated[items.length] = item;
+            Arrays.sort(updated);
+            userItems.put(userId, updated);
+            return items;
+        }
+
+        private List<RecommendationResponse> topNeighbours(int item, int k) {
+            IntIntMap row = rows[item];
+            PriorityQueue<double[]> heap = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a[1], b[1]));
+            for (int slot = 0; slot < row.capacity(); slot++) {
+                int other = row.keyAt(slot);
+                if (other < 0 || deleted.contains(bookIds.get(other))) {
+                    continue;
+                }
+                double score = row.valueAt(slot) / Math.sqrt((double) itemUsers[item] * itemUsers[other]);
+                if (heap.size() < k) {
+                    heap.add(new double[]{other, score});
+                } else if (score > heap.peek()[1]) {
+                    heap.poll();
+                    heap.add(new double[]{other, score});
+                }
+            }
+
+            List<RecommendationResponse> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                double[] entry = heap.poll();
+                int other = (int) entry[0];
+                result.add(RecommendationResponse.builder()
+                        .bookId(bookIds.get(other))
+                        .title(titles.get(other))
+                        .coverImageUrl(covers.get(other))
+                        .score(entry[1])
+                        .build());
+            }
+            Collections.reverse(result);
+            return List.copyOf(result);
+        }
+    }
+
+    /**
+     * Mapa int → int de direccionamiento abierto (claves no negativas). Evita crear un objeto
+     * por cada par de libros al contar co-ocurrencias.
+     */
+    private static final class IntIntMap {
+        private static final int EMPTY = -1;
+
+        private int[] keys;
+        private int[] values;
+        private int size;
+
+        private IntIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private void increment(int key) {
+            int slot = slot(keys, key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                values[slot] = 1;
+                if (++size * 2 > keys.length) {
+                    rehash();
+                }
+            } else {
+                values[slot]++;
+            }
+        }
+
+        private int capacity() {
+            return keys.length;
+        }
+
+        private int keyAt(int slot) {
+            return keys[slot];
+        }
+
+        private int valueAt(int slot) {
+            return values[slot];
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(int[] table, int key) {
+            int mask = table.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != EMPTY && table[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Lista creciente de enteros primitivos.
+     */
+    private static final class IntList {
+        private int[] data = new int[8];
+        private int size;
+
+        private void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        private int[] sortedUnique(int limit) {
+            int[] sorted = Arrays.copyOf(data, size);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length && unique < limit; i++) {
+                if (unique == 0 || sorted[i] != sorted[unique - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, unique);
+        }
+    }
+}
@@ -13,19 +13,21 @@ import com.example.demo.controllers.dto.ReviewUpdateRequest;
 import com.example.demo.controllers.exception.ResourceNotFoundException;
 import com.example.demo.controllers.exception.BookNotFoundException; // Importar si no existe
 import com.example.demo.controllers.exception.UserNotFoundException; // Importar si no existe
+import com.example.demo.controllers.response.PageResponse;
 import com.example.demo.controllers.response.ReviewResponse;
 import lombok.RequiredArgsConstructor;
 import org.apache.catalina.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
-@Transactional
 @RequiredArgsConstructor
 public class ReviewService {
 
@@ -43,9 +45,20 @@ public class ReviewService {
 
     private final UserService userService;
 
+    private final LeaderboardService leaderboardService;
+
+    private final HelpfulVoteService helpfulVoteService;
+
+    private final OptimisticRetryExecutor retryExecutor;
+
+    private final TransactionRunner transactionRunner;
+
 
-    @Transactional
     public ReviewResponse createReview(ReviewRequest reviewRequest) {
+        return transactionRunner.execute("review.create", () -> createReviewInTransaction(reviewRequest));
+    }
+
+    private ReviewResponse createReviewInTransaction(ReviewRequest reviewRequest) {
 
         // Validar que el libro exista antes de crear la reseña
         var book = bookRepository.findById(reviewRequest.getBookId())
@@ -72,6 +85,8 @@ public class ReviewService {
         updateBookWithReview(book, savedReview); // true para añadir
         updateUserWithReview(user, savedReview);
 
+        TransactionRunner.afterCommit(() -> leaderboardService.onReview(book));
+
         return mapToDTO(savedReview);
     }
 
@@ -110,12 +125,17 @@ public class ReviewService {
                 .book(bookInfo) // Añadir book (denormalizado)
                 .build();
 
-        // remuevo el antiguo review
-        user.getReviews().removeIf(r -> review.getId() != null && review.getId().equals(r.getId()));
+        retryExecutor.run("user.upsertReview", () -> {
+            Users current = userRepository.findById(user.getId())
+                    .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado con ID: " + user.getId()));
 
-        user.getReviews().add(userReview);
+            // remuevo el antiguo review
+            current.getReviews().removeIf(r -> review.getId() != null && review.getId().equals(r.getId()));
 
-        userRepository.save(user);
+            current.getReviews().add(userReview);
+
+            userRepository.save(current);
+        });
     }
 
     // --- MÉTODO AUXILIAR IMPLEMENTADO ---
@@ -136,17 +156,36 @@ public class ReviewService {
                 .reviewDate(review.getCreatedAt()) // Usar createdAt de Review como reviewDate
                 // No incluimos bookId, bookTitle, etc. en Book.Review porque ya está en el Book
                 .build();
-        // busco el review en la lista y si existe lo remuevo
-        book.getReviews().removeIf(r -> review.getId() != null && review.getId().equals(r.getId()));
-        // luego lo agrego (esto funciona tanto para agregar como para actualizar)
-        book.getReviews().add(bookReview);
+        retryExecutor.run("book.upsertReview", () -> {
+            Book current = bookRepository.findById(book.getId())
+                    .orElseThrow(() -> new BookNotFoundException("El libro no fue encontrado"));
+
+            // busco el review en la lista y si existe lo remuevo
+            current.getReviews().removeIf(r -> review.getId() != null && review.getId().equals(r.getId()));
+            // luego lo agrego (esto funciona tanto para agregar como para actualizar)
+            current.getReviews().add(bookReview);
 
-        bookRepository.save(book);
+            bookRepository.save(current);
+        });
     }
 
-    public List<ReviewResponse> getReviewsByBookId(String bookId) {
-        List<Review> reviews = reviewRepository.findByBook_BookId(bookId);
-        return reviews.stream().map(this::mapToDTO).collect(Collectors.toList());
+    public PageResponse<ReviewResponse> getReviewsByBookId(String bookId, String sort, int page, int size) {
+        Page<Review> reviews = reviewRepository.findByBook_BookId(bookId, PageRequest.of(page, size, reviewSort(sort)));
+        List<ReviewResponse> content = reviews.getContent().stream().map(this::mapToDTO).collect(Collectors.toList());
+        return PageResponse.of(content, page, size, reviews.getTotalElements());
+    }
+
+    // Cada criterio coincide con un índice compuesto (book.bookId, campo) de Review
+    private static Sort reviewSort(String sort) {
+        return switch (sort) {
+            case "rating" -> Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id"));
+            case "helpful" -> Sort.by(Sort.Direction.DESC, "helpfulCount").and(Sort.by(Sort.Direction.DESC, "id"));
+            default -> Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+        };
+    }
+
+    public void markHelpful(String reviewId, String userId) {
+        helpfulVoteService.vote(reviewId, userId);
     }
 
     // --- Este método ya está implementado correctamente ---
@@ -159,8 +198,11 @@ public class ReviewService {
         return reviewRepository.calculateAverageRatingByBookId(bookId);
     }
 
-    @Transactional
     public ReviewResponse updateReview(ReviewUpdateRequest reviewRequest) {
+        return transactionRunner.execute("review.update", () -> updateReviewInTransaction(reviewRequest));
+    }
+
+    private ReviewResponse updateReviewInTransaction(ReviewUpdateRequest reviewRequest) {
         String id = reviewRequest.getId();
         Review existingReview = reviewRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reseña no encontrada con ID: " + id));
@@ -198,6 +240,10 @@ public class ReviewService {
     }
 
     public void deleteReviewById(String id) {
+        transactionRunner.run("review.delete", () -> deleteReviewInTransaction(id));
+    }
+
+    private void deleteReviewInTransaction(String id) {
         Review review = reviewRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reseña no encontrada con ID: " + id));
 
@@ -206,6 +252,7 @@ public class ReviewService {
 
         // se borra el Review
         reviewRepository.deleteById(id);
+        helpfulVoteService.onReviewDeleted(id);
 
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new BookNotFoundException("El libro no fue encontrado")); // Lanza BookNotFoundException si no existe
@@ -0,0 +1,118 @@
+package com.example.demo.application;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caché de respuestas ya serializadas: guarda el JSON final comprimido con gzip, de modo que un
+ * acierto se escribe tal cual en la respuesta sin deserializar objetos ni pasar por Jackson.
+ *
+ * Las claves incluyen la versión del documento (el ETag) y las versiones antiguas expiran por
+ * TTL. Para que una entrada no quede desactualizada, el cuerpo debe leerse con esa versión o una
+ * más nueva: del primario o de un modelo de lectura que compruebe la versión, nunca de una caché
+ * que se invalida después del commit.
+ *
+ * Métricas: responses.serialized.cache (etiqueta result = hit o miss) y
+ * responses.serialized.build (tiempo de serializar y comprimir en cada fallo).
+ */
+@Component
+public class SerializedResponseCache {
+
+    static final String CACHE = "serializedResponses";
+
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer buildTimer;
+
+    @Value("${responses.serialized-cache.enabled:true}")
+    private boolean enabled = true;
+
+    public SerializedResponseCache(CacheManager cacheManager, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.hits = Counter.builder("responses.serialized.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("responses.serialized.cache").tag("result", "miss").register(meterRegistry);
+        this.buildTimer = Timer.builder("responses.serialized.build").register(meterRegistry);
+    }
+
+    /**
+     * Solo esta caché tiene TTL; las demás conservan la configuración por defecto.
+     */
+    @Bean
+    static RedisCacheManagerBuilderCustomizer serializedResponsesCacheCustomizer(
+            @Value("${responses.serialized-cache.ttl:PT10M}") Duration ttl) {
+        return builder -> builder.withCacheConfiguration(CACHE, RedisCacheConfiguration.defaultCacheConfig().entryTtl(ttl));
+    }
+
+    /**
+     * JSON comprimido de la respuesta identificada por la clave. Con clave nula no se usa la caché.
+     */
+    public byte[] gzippedJson(String key, Supplier<?> body) {
+        Cache cache = enabled && key != null ? cacheManager.getCache(CACHE) : null;
+        if (cache != null) {
+            byte[] cached = cache.get(key, byte[].class);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        Object value = body.get();
+        byte[] compressed = buildTimer.record(() -> gzip(toJson(value)));
+        if (cache != null) {
+            misses.increment();
+            cache.put(key, compressed);
+        }
+        return compressed;
+    }
+
+    /**
+     * Para los clientes que no aceptan gzip; se descomprime el arreglo sin materializar objetos.
+     */
+    public static byte[] gunzip(byte[] compressed) {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return input.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar la respuesta", ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Caché de listados del catálogo con protección contra estampidas.
+ *
+ * - Coalescencia: por cada clave solo hay una carga en curso por instancia; las demás peticiones
+ *   esperan su resultado en lugar de repetir la consulta.
+ * - TTL suave (stale-while-revalidate): pasado el TTL suave se sigue sirviendo el valor anterior
+ *   mientras un hilo en segundo plano lo recalcula. Redis conserva la entrada hasta el TTL duro.
+ * - Expiración temprana probabilística (XFetch): cada lectura puede adelantar el recálculo con una
+ *   probabilidad que crece al acercarse la expiración y con el costo de la última carga, de modo
+ *   que los recálculos se reparten en el tiempo en lugar de coincidir.
+ *
+ * {@link #markStale(String)} reemplaza al clear(): las entradas existentes pasan a estar vencidas
+ * y se recalculan de una en una en la siguiente lectura, sin dejar la caché vacía.
+ */
+@Slf4j
+@Component
+public class SingleFlightCache {
+
+    static final String BOOKS = "books";
+    static final String BOOKS_BY_SEARCH = "BooksBySearch";
+
+    private static final String STALE_MARKER_KEY = "__stale-since__";
+
+    private final CacheManager cacheManager;
+    private final TaskExecutor taskExecutor;
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter refreshes;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StaleMarker> staleMarkers = new ConcurrentHashMap<>();
+
+    @Value("${catalog-cache.soft-ttl:PT1M}")
+    private Duration softTtl = Duration.ofMinutes(1);
+
+    @Value("${catalog-cache.xfetch-beta:1.0}")
+    private double beta = 1.0;
+
+    @Value("${catalog-cache.stale-marker-refresh-ms:1000}")
+    private long staleMarkerRefreshMs = 1000;
+
+    public SingleFlightCache(CacheManager cacheManager,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                             MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.taskExecutor = taskExecutor;
+        this.hits = counter(meterRegistry, "hit");
+        this.staleHits = counter(meterRegistry, "stale");
+        this.misses = counter(meterRegistry, "miss");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        this.refreshes = counter(meterRegistry, "refresh");
+    }
+
+    /**
+     * TTL duro de Redis para los listados: acota la memoria y el tiempo máximo que se puede
+     * servir un valor vencido si nadie lo vuelve a pedir.
+     */
+    @Bean
+    static RedisCacheManagerBuilderCustomizer catalogListCachesCustomizer(
+            @Value("${catalog-cache.hard-ttl:PT10M}") Duration hardTtl) {
+        RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig().entryTtl(hardTtl);
+        return builder -> builder
+                .withCacheConfiguration(BOOKS, configuration)
+                .withCacheConfiguration(BOOKS_BY_SEARCH, configuration);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Serializable> T get(String cacheName, String key, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return loader.get();
+        }
+
+        // Las entradas con otro formato (p. ej. escritas por @Cacheable) se tratan como ausentes
+        Cache.ValueWrapper wrapper = cache.get(key);
+        if (wrapper == null || !(wrapper.get() instanceof Entry entry)) {
+            misses.increment();
+            return (T) load(cache, cacheName, key, loader, false);
+        }
+
+        long now = System.currentTimeMillis();
+        if (entry.createdAt() < staleSince(cache, cacheName)) {
+            staleHits.increment();
+            load(cache, cacheName, key, loader, true);
+        } else if (expiresEarly(entry, now)) {
+            hits.increment();
+            load(cache, cacheName, key, loader, true);
+        } else {
+            hits.increment();
+        }
+        return (T) entry.value();
+    }
+
+    /**
+     * Marca como vencidas todas las entradas de la caché. La marca se guarda en Redis para que
+     * la vean todas las instancias (cada una la relee como mucho cada stale-marker-refresh-ms).
+     */
+    public void markStale(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        cache.put(STALE_MARKER_KEY, now);
+        staleMarkers.put(cacheName, new StaleMarker(now, now));
+    }
+
+    /**
+     * XFetch: vence antes de tiempo si now - computeMillis * beta * ln(rand) >= createdAt + softTtl.
+     */
+    private boolean expiresEarly(Entry entry, long now) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        double earlyMillis = -entry.computeMillis() * beta * Math.log(random);
+        return now + earlyMillis >= entry.createdAt() + softTtl.toMillis();
+    }
+
+    private long staleSince(Cache cache, String cacheName) {
+        long now = System.currentTimeMillis();
+        StaleMarker marker = staleMarkers.get(cacheName);
+        if (marker == null || now - marker.readAt() > staleMarkerRefreshMs) {
+            Long since = cache.get(STALE_MARKER_KEY, Long.class);
+            marker = new StaleMarker(since != null ? since : 0L, now);
+            staleMarkers.put(cacheName, marker);
+        }
+        return marker.since();
+    }
+
+    /**
+     * Carga compartida por clave. En modo asíncrono el recálculo se delega al pool de tareas
+     * y se devuelve null; si ya hay una carga en curso no se inicia otra.
+     */
+    private Object load(Cache cache, String cacheName, String key, Supplier<?> loader, boolean async) {
+        String flightKey = cacheName + "::" + key;
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, created);
+        if (existing != null) {
+            coalesced.increment();
+            return async ? null : join(existing);
+        }
+
+        Runnable task = () -> {
+            try {
+                long start = System.currentTimeMillis();
+                Object value = loader.get();
+                long end = System.currentTimeMillis();
+                // Se fecha con el inicio de la carga: si se marcó como vencida mientras tanto, sigue vencida
+                cache.put(key, new Entry(value, start, end - start));
+                created.complete(value);
+            } catch (RuntimeException | Error ex) {
+                created.completeExceptionally(ex);
+            } finally {
+                inFlight.remove(flightKey, created);
+            }
+        };
+
+        if (!async) {
+            task.run();
+            return join(created);
+        }
+        refreshes.increment();
+        try {
+            taskExecutor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(flightKey, created);
+            log.debug("Recálculo en segundo plano de '{}' rechazado, se reintentará en la siguiente lectura", flightKey);
+        }
+        return null;
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw ex;
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("catalog.cache.requests").tag("result", result).register(registry);
+    }
+
+    record Entry(Object value, long createdAt, long computeMillis) implements Serializable {
+    }
+
+    private record StaleMarker(long since, long readAt) {
+    }
+}
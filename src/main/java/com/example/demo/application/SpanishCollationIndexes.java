@@ -0,0 +1,80 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Author;
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.Categories;
+import com.example.demo.controllers.domain.entity.Users;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+/**
+ * Índices con intercalación española de fuerza 1 (sin tildes ni mayúsculas) para los campos que
+ * se consultan con esa intercalación: nombres de autor y categoría (resolución del nombre escrito
+ * por el usuario), categorías de los libros y nombre completo de los usuarios. Una consulta solo
+ * usa un índice si declara la misma intercalación, por eso esos finders llevan
+ * @Collation(SPANISH_COLLATION).
+ *
+ * Se crean con nombres propios ("*_es") junto a los índices existentes, que siguen sirviendo a
+ * las consultas binarias y conservan la unicidad: cambiar la intercalación de un índice único
+ * existente fallaría si ya hay nombres que solo difieren en tildes.
+ */
+@Slf4j
+@Component
+public class SpanishCollationIndexes {
+
+    private final MongoTemplate mongoTemplate;
+    private final TaskExecutor taskExecutor;
+
+    public SpanishCollationIndexes(MongoTemplate mongoTemplate,
+                                   @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.taskExecutor = taskExecutor;
+    }
+
+    // En segundo plano: no retrasa la disponibilidad de la aplicación
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexesInBackground() {
+        taskExecutor.execute(this::ensureIndexes);
+    }
+
+    public void ensureIndexes() {
+        ensure(Author.class, "name");
+        ensure(Categories.class, "name");
+        ensure(Book.class, "categories");
+        ensure(Users.class, "fullName");
+        // Sin consultas que los usen: solo encarecían las escrituras de libros
+        dropIfPresent(Book.class, "title_es");
+        dropIfPresent(Book.class, "author_es");
+    }
+
+    private void dropIfPresent(Class<?> entityClass, String indexName) {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(entityClass);
+            if (indexOps.getIndexInfo().stream().anyMatch(index -> indexName.equals(index.getName()))) {
+                indexOps.dropIndex(indexName);
+                log.info("Índice {} eliminado de '{}'", indexName, mongoTemplate.getCollectionName(entityClass));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo eliminar el índice {} de '{}'", indexName, mongoTemplate.getCollectionName(entityClass), ex);
+        }
+    }
+
+    private void ensure(Class<?> entityClass, String field) {
+        try {
+            mongoTemplate.indexOps(entityClass).ensureIndex(new Index()
+                    .on(field, Sort.Direction.ASC)
+                    .named(field + "_es")
+                    .collation(DataAccessProfile.spanishCollation()));
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo crear el índice {}_es en '{}'", field, mongoTemplate.getCollectionName(entityClass), ex);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.demo.application;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Trie de prefijos para autocompletado sobre textos normalizados (sin tildes, en minúsculas y
+ * con los signos reducidos a espacios). Cada texto se indexa desde el inicio de cada palabra,
+ * así "cien años de soledad" también aparece al escribir "soled".
+ *
+ * Cada nodo guarda precalculados los K mejores resultados de su subárbol, de modo que responder
+ * un prefijo es bajar tantos nodos como caracteres tiene y devolver esa lista. Al insertar,
+ * eliminar o cambiar la puntuación de una entrada se recalculan las listas del camino, de abajo
+ * hacia arriba. La profundidad está acotada: las claves más largas terminan en el último nivel
+ * y los prefijos más largos se filtran sobre ese subárbol.
+ */
+class SuggestionIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+    private static final int MAX_WORD_STARTS = 8;
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::score).reversed()
+            .thenComparing(Entry::text, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Entry::id);
+
+    private final int topK;
+    private final int maxDepth;
+    private final Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    SuggestionIndex(int topK, int maxDepth) {
+        this.topK = topK;
+        this.maxDepth = maxDepth;
+    }
+
+    record Entry(String id, String text, long score) {
+    }
+
+    private record Posting(Entry entry, String key) {
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Posting> postings = new ArrayList<>(1);
+        private List<Entry> top = List.of();
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Inserta o reemplaza la entrada con ese ID.
+     */
+    void put(String id, String text, long score) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                keys(previous.text()).forEach(key -> unindex(key, previous.id()));
+            }
+            if (normalize(text).isEmpty()) {
+                return;
+            }
+            Entry entry = new Entry(id, text, score);
+            entries.put(id, entry);
+            keys(text).forEach(key -> index(key, entry));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                keys(previous.text()).forEach(key -> unindex(key, previous.id()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<Entry> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int depth = 0; depth < Math.min(key.length(), maxDepth); depth++) {
+                node = node.children.get(key.charAt(depth));
+                if (node == null) {
+                    return List.of();
+                }
+            }
+            if (key.length() <= maxDepth) {
+                return List.copyOf(node.top.subList(0, Math.min(limit, node.top.size())));
+            }
+            // Prefijo más largo que el trie: se filtran las claves del subárbol
+            Map<String, Entry> matches = new LinkedHashMap<>();
+            collect(node, key, matches);
+            return matches.values().stream().sorted(ORDER).limit(limit).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(String key, Entry entry) {
+        List<Node> path = path(key, true);
+        path.get(path.size() - 1).postings.add(new Posting(entry, key));
+        recompute(path);
+    }
+
+    private void unindex(String key, String id) {
+        List<Node> path = path(key, false);
+        if (path == null) {
+            return;
+        }
+        path.get(path.size() - 1).postings.removeIf(posting -> posting.entry().id().equals(id));
+        recompute(path);
+        prune(key, path);
+    }
+
+    private List<Node> path(String key, boolean create) {
+        List<Node> path = new ArrayList<>(Math.min(key.length(), maxDepth) + 1);
+        Node node = root;
+        path.add(node);
+        for (int depth = 0; depth < Math.min(key.length(), maxDepth); depth++) {
+            Node child = node.children.get(key.charAt(depth));
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node();
+                node.children.put(key.charAt(depth), child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Los K mejores de un nodo salen de sus propias claves y de los K mejores de cada hijo
+    private void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Entry> candidates = new ArrayList<>();
+            node.postings.forEach(posting -> candidates.add(posting.entry()));
+            node.children.values().forEach(child -> candidates.addAll(child.top));
+            candidates.sort(ORDER);
+
+            Map<String, Entry> top = new LinkedHashMap<>();
+            for (Entry candidate : candidates) {
+                if (top.size() >= topK) {
+                    break;
+                }
+                top.putIfAbsent(candidate.id(), candidate);
+            }
+            node.top = List.copyOf(top.values());
+        }
+    }
+
+    private void prune(String key, List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.children.isEmpty() || !node.postings.isEmpty()) {
+                return;
+            }
+            path.get(i - 1).children.remove(key.charAt(i - 1));
+        }
+    }
+
+    private void collect(Node node, String prefix, Map<String, Entry> matches) {
+        node.postings.stream()
+                .filter(posting -> posting.key().startsWith(prefix))
+                .forEach(posting -> matches.putIfAbsent(posting.entry().id(), posting.entry()));
+        node.children.values().forEach(child -> collect(child, prefix, matches));
+    }
+
+    private static Set<String> keys(String text) {
+        String normalized = normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        int start = 0;
+        for (int word = 0; word < MAX_WORD_STARTS && start >= 0 && start < normalized.length(); word++) {
+            keys.add(normalized.substring(start));
+            int space = normalized.indexOf(' ', start);
+            start = space < 0 ? -1 : space + 1;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Author;
+import com.example.demo.controllers.domain.entity.AuthorStats;
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.Users;
+import com.example.demo.controllers.response.SuggestionResponse;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Autocompletado de títulos, autores y usuarios desde trie en memoria ({@link SuggestionIndex}),
+ * ordenado por popularidad:
+ * - títulos: préstamos (incluidos los archivados) + favoritos + calificaciones del libro;
+ * - autores: popularidad de "estadisticas_autores";
+ * - usuarios: préstamos recientes (los archivados no cuentan).
+ *
+ * Los índices se construyen al arrancar y cada suggest.rebuild-cron (la popularidad de los
+ * autores cambia sin que cambie el autor). Entre reconstrucciones se actualizan por change
+ * stream (libros y autores) y desde UserService (usuarios). Los cambios que llegan durante una
+ * reconstrucción se vuelven a aplicar sobre los índices nuevos.
+ */
+@Slf4j
+@Service
+public class SuggestionService implements CatalogProjection {
+
+    public static final String TITLE = "title";
+    public static final String AUTHOR = "author";
+    public static final String USER = "user";
+
+    private final MongoTemplate mongoTemplate;
+    private final TaskExecutor taskExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, SuggestionIndex> indexes;
+
+    @Value("${suggest.top-k:10}")
+    private int topK = 10;
+
+    @Value("${suggest.max-depth:24}")
+    private int maxDepth = 24;
+
+    public SuggestionService(MongoTemplate mongoTemplate,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.taskExecutor = taskExecutor;
+        this.indexes = emptyIndexes();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    @Scheduled(cron = "${suggest.rebuild-cron:0 0 * * * *}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, SuggestionIndex> rebuilt = emptyIndexes();
+            streamBooks(null, rebuilt.get(TITLE)::put);
+            streamAuthors(null, rebuilt.get(AUTHOR)::put);
+            streamUsers(null, rebuilt.get(USER)::put);
+            indexes = rebuilt;
+            log.info("Índices de autocompletado construidos en {} ms: {} títulos, {} autores, {} usuarios",
+                    System.currentTimeMillis() - start, rebuilt.get(TITLE).size(), rebuilt.get(AUTHOR).size(),
+                    rebuilt.get(USER).size());
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron construir los índices de autocompletado", ex);
+        } finally {
+            rebuilding.set(false);
+            List<String> pending = new ArrayList<>(changedDuringRebuild);
+            changedDuringRebuild.removeAll(pending);
+            pending.forEach(change -> {
+                String[] parts = change.split(":", 2);
+                refresh(parts[0], parts[1]);
+            });
+        }
+    }
+
+    /**
+     * Sugerencias para un prefijo. Con type = null se mezclan los tres tipos por popularidad.
+     */
+    public List<SuggestionResponse> suggest(String prefix, String type, int limit) {
+        Map<String, SuggestionIndex> current = indexes;
+        List<String> types = type == null || "all".equals(type) ? List.of(TITLE, AUTHOR, USER) : List.of(type);
+        List<SuggestionResponse> suggestions = new ArrayList<>();
+        for (String t : types) {
+            current.get(t).suggest(prefix, limit).forEach(entry -> suggestions.add(SuggestionResponse.builder()
+                    .type(t)
+                    .id(entry.id())
+                    .text(entry.text())
+                    .score(entry.score())
+                    .build()));
+        }
+        if (types.size() == 1) {
+            return suggestions;
+        }
+        return suggestions.stream()
+                .sorted(Comparator.comparingLong(SuggestionResponse::getScore).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void onChange(CatalogChange change) {
+        if (change.id() == null) {
+            return;
+        }
+        if (CatalogChangeStreamListener.BOOKS.equals(change.collection())) {
+            apply(TITLE, change.id(), change.operation() == OperationType.DELETE);
+        } else if (CatalogChangeStreamListener.AUTHORS.equals(change.collection())) {
+            apply(AUTHOR, change.id(), change.operation() == OperationType.DELETE);
+        }
+    }
+
+    public void userChanged(String userId) {
+        TransactionRunner.afterCommit(() -> apply(USER, userId, false));
+    }
+
+    public void userRemoved(String userId) {
+        TransactionRunner.afterCommit(() -> apply(USER, userId, true));
+    }
+
+    /**
+     * El cambio se anota para repetirlo antes de aplicarlo: si la reconstrucción publica el índice
+     * nuevo entre medias, o bien este cambio ya llega al índice nuevo, o bien está anotado cuando
+     * la reconstrucción repite los pendientes (rebuild publica, baja la marca y luego los repite).
+     */
+    private void apply(String type, String id, boolean deleted) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(type + ":" + id);
+        }
+        if (deleted) {
+            indexes.get(type).remove(id);
+        } else {
+            refresh(type, id);
+        }
+    }
+
+    private void refresh(String type, String id) {
+        SuggestionIndex index = indexes.get(type);
+        index.remove(id);
+        switch (type) {
+            case TITLE -> streamBooks(id, index::put);
+            case AUTHOR -> streamAuthors(id, index::put);
+            case USER -> streamUsers(id, index::put);
+            default -> throw new IllegalArgumentException("Tipo de sugerencia desconocido: " + type);
+        }
+    }
+
+    private void streamBooks(String id, Indexer indexer) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (id != null) {
+            stages.add(Aggregation.match(Criteria.where("id").is(id)));
+        }
+        stages.add(context -> new Document("$project", new Document("title", 1)
+                .append("score", new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$favoritesCount", 0)),
+                        new Document("$ifNull", List.of("$ratingsCount", 0)),
+                        new Document("$ifNull", List.of("$archivedLoansCount", 0)),
+                        new Document("$size", new Document("$ifNull", List.of("$loans", List.of()))))))));
+        try (Stream<Document> books = mongoTemplate.aggregateStream(Aggregation.newAggregation(Book.class, stages),
+                Document.class)) {
+            books.forEach(book -> indexer.put(book.get("_id").toString(), book.getString("title"), score(book)));
+        }
+    }
+
+    private void streamAuthors(String id, Indexer indexer) {
+        Query query = id != null ? Query.query(Criteria.where("id").is(id)) : new Query();
+        query.fields().include("name");
+        List<Author> authors = mongoTemplate.find(query, Author.class);
+
+        Map<String, Long> popularity = new HashMap<>();
+        Query statsQuery = id != null
+                ? Query.query(Criteria.where("id").in(authors.stream().map(Author::getName).toList()))
+                : new Query();
+        statsQuery.fields().include("popularity");
+        mongoTemplate.find(statsQuery, AuthorStats.class)
+                .forEach(stats -> popularity.put(stats.getId(), stats.getPopularity()));
+
+        authors.forEach(author -> indexer.put(author.getId(), author.getName(),
+                popularity.getOrDefault(author.getName(), 0L)));
+    }
+
+    private void streamUsers(String id, Indexer indexer) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (id != null) {
+            stages.add(Aggregation.match(Criteria.where("id").is(id)));
+        }
+        stages.add(context -> new Document("$project", new Document("fullName", 1)
+                .append("score", new Document("$size", new Document("$ifNull", List.of("$loans", List.of()))))));
+        try (Stream<Document> users = mongoTemplate.aggregateStream(Aggregation.newAggregation(Users.class, stages),
+                Document.class)) {
+            users.forEach(user -> indexer.put(user.get("_id").toString(), user.getString("fullName"), score(user)));
+        }
+    }
+
+    private static long score(Document document) {
+        return document.get("score") instanceof Number number ? number.longValue() : 0;
+    }
+
+    private Map<String, SuggestionIndex> emptyIndexes() {
+        return Map.of(
+                TITLE, new SuggestionIndex(topK, maxDepth),
+                AUTHOR, new SuggestionIndex(topK, maxDepth),
+                USER, new SuggestionIndex(topK, maxDepth));
+    }
+
+    @FunctionalInterface
+    private interface Indexer {
+        void put(String id, String text, long score);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.exception.ConcurrentUpdateException;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una unidad de trabajo de varios documentos dentro de una transacción de MongoDB.
+ *
+ * Si la transacción falla con la etiqueta TransientTransactionError (conflicto de escritura,
+ * elección de primario) o con un conflicto de @Version, se repite completa desde el principio:
+ * dentro de una transacción abortada no tiene sentido reintentar una sola escritura, por eso
+ * {@link OptimisticRetryExecutor} no reintenta cuando hay una transacción activa.
+ *
+ * Los efectos fuera de MongoDB (cachés, rankings en memoria) se registran con
+ * {@link #afterCommit(Runnable)} para que no se ejecuten dos veces ni antes de confirmar.
+ *
+ * Métrica: transactions.retries (etiquetas operation y reason = transient o conflict).
+ */
+@Slf4j
+@Component
+public class TransactionRunner {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${mongodb.transactions.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${mongodb.transactions.max-backoff-ms:200}")
+    private long maxBackoffMs = 200;
+
+    public TransactionRunner(ObjectProvider<PlatformTransactionManager> transactionManager, MeterRegistry meterRegistry) {
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactionTemplate = manager != null ? new TransactionTemplate(manager) : null;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        // Sin gestor de transacciones, o dentro de una transacción ya iniciada, se ejecuta tal cual
+        if (transactionTemplate == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (RuntimeException ex) {
+                String reason = retryReason(ex);
+                if (reason == null) {
+                    throw ex;
+                }
+                meterRegistry.counter("transactions.retries", "operation", operation, "reason", reason).increment();
+                if (attempt >= maxAttempts) {
+                    log.warn("Transacción '{}' abortada tras {} intentos ({})", operation, attempt, reason);
+                    throw new ConcurrentUpdateException(
+                            "El recurso fue modificado por otra operación, intente de nuevo", ex);
+                }
+                log.debug("Transacción '{}' reintentada ({}), intento {} de {}", operation, reason, attempt, maxAttempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable work) {
+        execute(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Ejecuta la acción cuando la transacción actual se confirme, o de inmediato si no hay una.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String retryReason(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException) {
+                return "conflict";
+            }
+            if (cause instanceof MongoException mongo
+                    && mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return "transient";
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, 10L << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Reintento interrumpido", ex);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.Users;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Filtros de Bloom en memoria para las claves únicas ISBN (libros) y número de tarjeta
+ * (usuarios). Antes de consultar existsByIsbn / existsByCardNum se pregunta al filtro: si el
+ * valor seguro no existe se evita el viaje a MongoDB; si puede existir se consulta como antes.
+ *
+ * Los filtros se cargan al arrancar leyendo solo el campo de la clave y se actualizan en cada
+ * escritura de esta instancia. Mientras se cargan, o si la carga falla, siempre responden
+ * "puede existir". El índice único sigue siendo la fuente de verdad: una clave creada por otra
+ * instancia que el filtro no conoce termina en DuplicateKeyException, que los servicios
+ * traducen a la excepción de "ya existe" correspondiente.
+ *
+ * Métrica: unique_key_filter.checks (key = isbn o cardNum, result = absent o possible).
+ */
+@Slf4j
+@Component
+public class UniqueKeyFilter {
+
+    private final MongoTemplate mongoTemplate;
+    private final TaskExecutor taskExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final ScalableBloomFilter isbns;
+    private final ScalableBloomFilter cardNums;
+    private volatile boolean isbnsReady;
+    private volatile boolean cardNumsReady;
+
+    @Value("${unique-key-filter.enabled:true}")
+    private boolean enabled = true;
+
+    public UniqueKeyFilter(MongoTemplate mongoTemplate,
+                           @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                           MeterRegistry meterRegistry,
+                           @Value("${unique-key-filter.expected-insertions:100000}") long expectedInsertions,
+                           @Value("${unique-key-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.mongoTemplate = mongoTemplate;
+        this.taskExecutor = taskExecutor;
+        this.meterRegistry = meterRegistry;
+        this.isbns = new ScalableBloomFilter(expectedInsertions, falsePositiveRate);
+        this.cardNums = new ScalableBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (!enabled) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            isbnsReady = load(Book.class, "isbn", isbns);
+            cardNumsReady = load(Users.class, "cardNum", cardNums);
+        });
+    }
+
+    public boolean mightContainIsbn(String isbn) {
+        return check("isbn", isbn, isbns, isbnsReady);
+    }
+
+    public boolean mightContainCardNum(String cardNum) {
+        return check("cardNum", cardNum, cardNums, cardNumsReady);
+    }
+
+    public void recordIsbn(String isbn) {
+        if (isbn != null) {
+            isbns.put(isbn);
+        }
+    }
+
+    public void recordCardNum(String cardNum) {
+        if (cardNum != null) {
+            cardNums.put(cardNum);
+        }
+    }
+
+    /**
+     * Indica si la excepción es una violación del índice único del campo dado
+     * (el nombre del índice de @Indexed es el del campo).
+     */
+    public static boolean isDuplicateKey(DuplicateKeyException ex, String field) {
+        String message = ex.getMessage();
+        return message != null && message.contains("index: " + field);
+    }
+
+    private boolean check(String key, String value, ScalableBloomFilter filter, boolean ready) {
+        if (!enabled || !ready || value == null || filter.mightContain(value)) {
+            meterRegistry.counter("unique_key_filter.checks", "key", key, "result", "possible").increment();
+            return true;
+        }
+        meterRegistry.counter("unique_key_filter.checks", "key", key, "result", "absent").increment();
+        return false;
+    }
+
+    private boolean load(Class<?> entityClass, String field, ScalableBloomFilter filter) {
+        long start = System.currentTimeMillis();
+        Query query = new Query();
+        query.fields().include(field).exclude("_id");
+        try (Stream<Document> values = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(entityClass))) {
+            values.map(document -> document.getString(field)).filter(Objects::nonNull).forEach(filter::put);
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo cargar el filtro de '{}'; se consultará siempre a MongoDB", field, ex);
+            return false;
+        }
+        log.info("Filtro de '{}' cargado con {} valores en {} ms", field, filter.approximateSize(),
+                System.currentTimeMillis() - start);
+        return true;
+    }
+}
@@ -12,15 +12,23 @@ import com.example.demo.controllers.dto.UserRequest;
 import com.example.demo.controllers.exception.*;
 import com.example.demo.controllers.response.UserResponse;
 import com.example.demo.controllers.response.LoanSummaryResponse;
+import com.example.demo.controllers.response.PageResponse;
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.controllers.domain.Model.BookSummary;
 import com.example.demo.controllers.domain.Model.UserSummary;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -35,11 +43,28 @@ public class UserService {
 
     private final LoanRepository loanRepository;
 
-    @Transactional
+    private final RecommendationService recommendationService;
+
+    private final ReadingHistoryService readingHistoryService;
+
+    private final OptimisticRetryExecutor retryExecutor;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final CatalogCacheInvalidator cacheInvalidator;
+
+    private final TransactionRunner transactionRunner;
+
+    private final LoanArchiveService loanArchiveService;
+
+    private final UniqueKeyFilter uniqueKeyFilter;
+
+    private final SuggestionService suggestionService;
+
     public UserResponse createUser(UserRequest request) {
 
-        // Verificar si ya existe un usuario con el mismo número de tarjeta
-        if (userRepository.existsByCardNum(request.getCardNum())) {
+        // Verificar si ya existe un usuario con el mismo número de tarjeta (el filtro evita la consulta si seguro no existe)
+        if (cardNumExists(request.getCardNum())) {
             throw new UserAlreadyExistsException("Ya existe un usuario con el número de tarjeta: " + request.getCardNum());
         }
 
@@ -53,36 +78,76 @@ public class UserService {
                 .build();
 
         // Guardar el usuario
-        Users savedUser = userRepository.save(user);
+        Users savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DuplicateKeyException ex) {
+            throw duplicateCardNum(ex, request.getCardNum());
+        }
+        uniqueKeyFilter.recordCardNum(savedUser.getCardNum());
+        suggestionService.userChanged(savedUser.getId());
         log.info("Usuario creado con ID: {}", savedUser.getId());
 
         // Convertir a DTO y retornar
         return mapToUserResponse(savedUser);
     }
 
-    @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(this::mapToUserResponse)
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public UserResponse getUserById(String id) {
         return userRepository.findById(id)
                 .map(this::mapToUserResponse)
                 .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado con ID: " + id));
     }
 
-    @Transactional(readOnly = true)
+    public PageResponse<LoanSummaryResponse> getReadingHistory(String id, YearMonth from, YearMonth to, int page, int size) {
+        if (!userRepository.existsById(id)) {
+            throw new UserNotFoundException("Usuario no encontrado con ID: " + id);
+        }
+        return readingHistoryService.getHistory(id, from, to, page, size);
+    }
+
     public List<UserResponse> getUserByFullName(String fullName) {
-        return userRepository.findByFullNameContainingIgnoreCase(fullName).stream()
+        // Nombre completo: búsqueda por índice sin tildes ni mayúsculas; si no hay coincidencia,
+        // se busca como parte del nombre (recorre la colección)
+        List<Users> users = userRepository.findByFullName(fullName);
+        if (users.isEmpty()) {
+            Query query = Query.query(Criteria.where("fullName")
+                    .regex(DataAccessProfile.accentInsensitiveContains(fullName), "i"));
+            users = mongoTemplate.find(query.maxTimeMsec(DataAccessProfile.REPOSITORY_MAX_TIME_MS), Users.class);
+        }
+        return users.stream()
                 .map(this::mapToUserResponse)
                 .collect(Collectors.toList());
     }
 
-    @Transactional
     public UserResponse updateUser(String id, UserRequest request) {
+        // El usuario y sus copias en préstamos y libros cambian juntos
+        try {
+            return transactionRunner.execute("user.update", () -> updateUserInTransaction(id, request));
+        } catch (DuplicateKeyException ex) {
+            throw duplicateCardNum(ex, request.getCardNum());
+        }
+    }
+
+    private boolean cardNumExists(String cardNum) {
+        return uniqueKeyFilter.mightContainCardNum(cardNum) && userRepository.existsByCardNum(cardNum);
+    }
+
+    // El índice único es la fuente de verdad: un número de tarjeta que el filtro no conocía termina aquí
+    private RuntimeException duplicateCardNum(DuplicateKeyException ex, String cardNum) {
+        if (UniqueKeyFilter.isDuplicateKey(ex, "cardNum")) {
+            uniqueKeyFilter.recordCardNum(cardNum);
+            return new UserAlreadyExistsException("Ya existe un usuario con el número de tarjeta: " + cardNum);
+        }
+        return ex;
+    }
+
+    private UserResponse updateUserInTransaction(String id, UserRequest request) {
         return userRepository.findById(id)
                 .map(user -> {
 
@@ -96,15 +161,16 @@ public class UserService {
                     user.setNumber(request.getNumber());
 
                     // Verificar si el cardNum ha cambiado y si ya existe
-                    if (!oldCardNum.equals(request.getCardNum()) &&
-                            userRepository.existsByCardNum(request.getCardNum())) {
+                    if (!oldCardNum.equals(request.getCardNum()) && cardNumExists(request.getCardNum())) {
                         throw new UserAlreadyExistsException("Ya existe un usuario con el número de tarjeta: " + request.getCardNum());
                     }
                     user.setCardNum(request.getCardNum());
+                    uniqueKeyFilter.recordCardNum(request.getCardNum());
 
                     // Guardar el usuario actualizado
                     Users updatedUser = userRepository.save(user);
                     log.info("User actualizado con ID: {}", id);
+                    suggestionService.userChanged(id);
 
                     updateUserSummaryInLoans(updatedUser);
                     updateUserSummaryInBooks(updatedUser);
@@ -124,7 +190,7 @@ public class UserService {
                 .number(user.getNumber())
                 .reviews(user.getReviews())
                 .favorites(user.getFavorites())
-                .loans(user.getLoans() != null ? user.getLoans().stream().map(loan -> LoanSummaryResponse.builder()
+                .loans(user.getLoans() != null ? readingHistoryService.recentWindow(user.getLoans()).stream().map(loan -> LoanSummaryResponse.builder()
                         .id(loan.getId())
                         .loanDate(loan.getLoanDate())
                         .expectedReturnDate(loan.getExpectedReturnDate())
@@ -151,6 +217,9 @@ public class UserService {
 
         List<Loan> loans = loanRepository.findByUser_UserId(user.getId());
 
+        // Los préstamos archivados también muestran los datos actuales del usuario
+        loanArchiveService.updateArchivedUser(user.getId(), user.getFullName(), user.getEmail(), user.getCardNum());
+
         if (loans.isEmpty()){
             log.info("No se encontraron préstamos asociados al usuario con ID: {}", user.getId());
             return;
@@ -169,38 +238,28 @@ public class UserService {
 
         List<Book> loanBooks = bookRepository.findByLoans_User_Id(user.getId());
 
-        for (Book book : loanBooks) {
-            if (book.getLoans() != null) {
-                book.getLoans().forEach(loan -> {
-                    if (loan.getUser() != null && user.getId().equals(loan.getUser().getId())) {
-                        loan.getUser().setFullName(user.getFullName());
-                        loan.getUser().setCardNum(user.getCardNum());
-                    }
-                });
-                bookRepository.save(book);
-                log.info("Actualizado usuario {} en préstamo del libro '{}'", user.getFullName(), book.getTitle());
-            }
-        }
-
-        List<Book> favoredBooks = bookRepository.findByFavoredByUsers_UserId(user.getId());
-
-        for (Book book : favoredBooks) {
-            if (book.getFavoredByUsers() != null) {
-                book.getFavoredByUsers().forEach(favored -> {
-                    if (user.getId().equals(favored.getUserId())) {
-                        favored.setFullName(user.getFullName());
-                        favored.setEmail(user.getEmail());
-                        favored.setCardNum(user.getCardNum());
-                    }
-                });
-                bookRepository.save(book);
-                log.info("Actualizado usuario {} en favoritos del libro '{}'", user.getFullName(), book.getTitle());
-            }
+        for (Book loanBook : loanBooks) {
+            retryExecutor.run("user.renameInBookLoans", () -> bookRepository.findById(loanBook.getId()).ifPresent(book -> {
+                if (book.getLoans() != null) {
+                    book.getLoans().forEach(loan -> {
+                        if (loan.getUser() != null && user.getId().equals(loan.getUser().getId())) {
+                            loan.getUser().setFullName(user.getFullName());
+                            loan.getUser().setCardNum(user.getCardNum());
+                        }
+                    });
+                    bookRepository.save(book);
+                    cacheInvalidator.bookDetailChanged(book.getId());
+                    log.info("Actualizado usuario {} en préstamo del libro '{}'", user.getFullName(), book.getTitle());
+                }
+            }));
         }
     }
 
-    @Transactional
     public void deleteUser(String id) {
+        transactionRunner.run("user.delete", () -> deleteUserInTransaction(id));
+    }
+
+    private void deleteUserInTransaction(String id) {
         Users user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("No se puede eliminar. Usuario no encontrado con ID: " + id));
 
@@ -219,42 +278,49 @@ public class UserService {
             log.info("Préstamos entregados del usuario {} eliminados", user.getFullName());
         }
 
-        // Eliminar el usuario de libros
-        List<Book> favoredBooks = bookRepository.findByFavoredByUsers_UserId(id);
-        for (Book book : favoredBooks) {
-            if (book.getFavoredByUsers() != null) {
-                book.getFavoredByUsers().removeIf(favored -> id.equals(favored.getUserId()));
-                bookRepository.save(book);
-                log.info("Usuario {} eliminado de favoritos del libro '{}'", user.getFullName(), book.getTitle());
-            }
+        // Descontar el usuario de los contadores de favoritos de sus libros
+        List<String> favoriteBookIds = user.getFavorites().stream().map(BookSummary::getBookId).toList();
+        if (!favoriteBookIds.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(favoriteBookIds)),
+                    new Update().inc("favoritesCount", -1).inc("version", 1), Book.class);
+            favoriteBookIds.forEach(cacheInvalidator::bookDetailChanged);
         }
 
         List<Book> booksWithLoans = bookRepository.findByLoans_User_Id(id);
-        for (Book book : booksWithLoans) {
-            if (book.getLoans() != null) {
-                book.getLoans().forEach(loan -> {
-                    if (loan.getUser() != null && id.equals(loan.getUser().getId())) {
-                        loan.setUser(null);
-                    }
-                });
-                bookRepository.save(book);
-            }
+        for (Book loanBook : booksWithLoans) {
+            retryExecutor.run("user.deleteFromBookLoans", () -> bookRepository.findById(loanBook.getId()).ifPresent(book -> {
+                if (book.getLoans() != null) {
+                    book.getLoans().forEach(loan -> {
+                        if (loan.getUser() != null && id.equals(loan.getUser().getId())) {
+                            loan.setUser(null);
+                        }
+                    });
+                    bookRepository.save(book);
+                    cacheInvalidator.bookDetailChanged(book.getId());
+                }
+            }));
         }
+        loanArchiveService.deleteArchivedByUser(id);
+        readingHistoryService.deleteHistory(id);
         userRepository.delete(user);
+        suggestionService.userRemoved(id);
         log.info("Usuario eliminado con ID: {}", id);
     }
 
     //Añadir libros favoritos del usuario
-    @Transactional
+    // El favorito del usuario y el contador del libro se escriben en la misma transacción
     public void addFavorite(String userId, String bookId) {
+        transactionRunner.run("user.addFavorite", () -> addFavoriteInTransaction(userId, bookId));
+    }
 
-        Users user = userRepository.findById(userId).orElseThrow();
-        Book book = bookRepository.findById(bookId).orElseThrow();
+    private void addFavoriteInTransaction(String userId, String bookId) {
 
-        // Verificar si ya existe en favoritos
-        boolean alreadyExists = user.getFavorites().stream()
-                .anyMatch(fav -> fav.getBookId().equals(bookId));
-        if (alreadyExists) throw new FavoriteAlreadyExistsException("El libro ya existe en favoritos");
+        Query bookQuery = Query.query(Criteria.where("id").is(bookId));
+        bookQuery.fields().include("title", "coverImageUrl", "averageRating");
+        Book book = mongoTemplate.findOne(bookQuery, Book.class);
+        if (book == null) {
+            throw new BookNotFoundException("Libro no encontrado con ID: " + bookId);
+        }
 
         // Nueva instancia de BookSummary
         BookSummary bookSummary = BookSummary.builder()
@@ -264,47 +330,52 @@ public class UserService {
                 .averageRating(book.getAverageRating())
                 .build();
 
-        // Nueva instancia de UserSummary
-        UserSummary userSummary = UserSummary.builder()
-                .userId(user.getId())
-                .fullName(user.getFullName())
-                .email(user.getEmail())
-                .cardNum(user.getCardNum())
-                .build();
-
-
-        user.getFavorites().add(bookSummary);
-        book.getFavoredByUsers().add(userSummary);
+        // $push condicionado a que el libro no esté ya en favoritos: la comprobación y la escritura
+        // son una sola operación atómica y no hace falta cargar el usuario
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(userId).and("favorites.bookId").ne(bookId)),
+                new Update().push("favorites", bookSummary).inc("version", 1),
+                Users.class);
+        if (result.getMatchedCount() == 0) {
+            if (!userRepository.existsById(userId)) {
+                throw new UserNotFoundException("Usuario no encontrado con ID: " + userId);
+            }
+            throw new FavoriteAlreadyExistsException("El libro ya existe en favoritos");
+        }
 
-        userRepository.save(user);
-        bookRepository.save(book);
+        incrementFavoritesCount(bookId, 1);
+        TransactionRunner.afterCommit(() -> recommendationService.onInteraction(userId, bookSummary));
     }
 
     //Remover favorito
-    @Transactional
     public void removeFavorite(String userId, String bookId) {
-        Users user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado con ID: " + userId));
-
-        Book book = bookRepository.findById(bookId).orElseThrow();
+        transactionRunner.run("user.removeFavorite", () -> removeFavoriteInTransaction(userId, bookId));
+    }
 
-        // Remover por bookId
-        boolean removed = user.getFavorites().removeIf(fav -> fav.getBookId().equals(bookId));
-        if (!removed) {
+    private void removeFavoriteInTransaction(String userId, String bookId) {
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(userId).and("favorites.bookId").is(bookId)),
+                new Update().pull("favorites", new Document("bookId", bookId)).inc("version", 1),
+                Users.class);
+        if (result.getMatchedCount() == 0) {
+            if (!userRepository.existsById(userId)) {
+                throw new UserNotFoundException("Usuario no encontrado con ID: " + userId);
+            }
             throw new BookNotFoundException("El libro con ID " + bookId + " no está en favoritos del usuario");
         }
 
-        book.getFavoredByUsers().removeIf(fav -> fav.getUserId().equals(userId));
-
-
-        userRepository.save(user);
-        bookRepository.save(book);
+        incrementFavoritesCount(bookId, -1);
         log.info("Libro {} removido de favoritos del usuario {}", bookId, userId);
 
     }
 
+    private void incrementFavoritesCount(String bookId, int delta) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(bookId)),
+                new Update().inc("favoritesCount", delta).inc("version", 1), Book.class);
+        cacheInvalidator.bookDetailChanged(bookId);
+    }
+
     //Obtener libros favoritos del usuario
-    @Transactional(readOnly = true)
     public List<BookSummary> getUserFavorites(String userId) {
         Users user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado con ID: " + userId));
@@ -312,9 +383,13 @@ public class UserService {
     }
 
     public Users deleteReviewFromUser(Users user, Review review){
-        if(user.getId().equals(review.getBook().getBookId())){
-            user.getReviews().removeIf(r -> r.getId().equals(review.getId()));
-            return userRepository.save(user);
+        if(user.getId().equals(review.getUser().getUserId())){
+            return retryExecutor.execute("user.deleteReview", () -> {
+                Users current = userRepository.findById(user.getId())
+                        .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado con ID: " + user.getId()));
+                current.getReviews().removeIf(r -> r.getId().equals(review.getId()));
+                return userRepository.save(current);
+            });
         } else {
             throw new BookNotFoundException("El user con ID: " + user.getId() + " no contiene la reseña con ID: " + review.getId());
         }
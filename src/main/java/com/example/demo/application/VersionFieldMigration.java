@@ -0,0 +1,78 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Author;
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.entity.Categories;
+import com.example.demo.controllers.domain.entity.Loan;
+import com.example.demo.controllers.domain.entity.Users;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Inicializa el campo version en los documentos creados antes de activar @Version.
+ * Sin él, Spring Data considera "nuevo" a un documento con versión nula e intentaría
+ * insertarlo de nuevo al guardarlo (error de clave duplicada).
+ *
+ * Se ejecuta una sola vez (marca en {@link MigrationMarkers}) y como fase de arranque anterior
+ * al servidor web, de modo que ninguna petición ve documentos sin versión.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VersionFieldMigration implements SmartLifecycle {
+
+    // El servidor web arranca en la fase DEFAULT_PHASE - 2048; las migraciones van antes
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final String MIGRATION = "version-field";
+
+    private static final List<Class<?>> VERSIONED = List.of(
+            Book.class, Users.class, Author.class, Categories.class, Loan.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationMarkers migrationMarkers;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        if (!migrationMarkers.isApplied(MIGRATION)) {
+            migrate();
+            migrationMarkers.markApplied(MIGRATION);
+        }
+        running = true;
+    }
+
+    private void migrate() {
+        Query missing = Query.query(Criteria.where("version").exists(false));
+        for (Class<?> type : VERSIONED) {
+            long updated = mongoTemplate.updateMulti(missing, new Update().set("version", 0L), type).getModifiedCount();
+            if (updated > 0) {
+                log.info("Campo version inicializado en {} documentos de {}", updated, mongoTemplate.getCollectionName(type));
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
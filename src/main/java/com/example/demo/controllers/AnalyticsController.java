@@ -0,0 +1,66 @@
+package com.example.demo.controllers;
+
+import com.example.demo.application.LoanAnalyticsService;
+import com.example.demo.controllers.response.LoanAnalyticsResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/analytics")
+@Tag(name = "Analítica", description = "API de indicadores de circulación de préstamos")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final LoanAnalyticsService loanAnalyticsService;
+
+    @GetMapping("/loans")
+    @Operation(summary = "Serie de préstamos y devoluciones por hora o por día, con filtros opcionales de sede y categoría")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Serie obtenida exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Granularidad o rango de fechas inválido")
+    })
+    public ResponseEntity<LoanAnalyticsResponse> getLoanSeries(
+            @RequestParam(value = "granularity", defaultValue = "DAY") String granularity,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "branch", required = false) String branch,
+            @RequestParam(value = "category", required = false) String category) {
+        return ResponseEntity.ok(loanAnalyticsService.getSeries(granularity, from, to, branch, category));
+    }
+
+    @GetMapping("/loans/breakdown")
+    @Operation(summary = "Totales de préstamos de un rango de fechas por categoría o por sede")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Desglose obtenido exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Desglose o rango de fechas inválido")
+    })
+    public ResponseEntity<LoanAnalyticsResponse> getLoanBreakdown(
+            @RequestParam(value = "by", defaultValue = "category") String by,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "branch", required = false) String branch) {
+        return ResponseEntity.ok(loanAnalyticsService.getBreakdown(by, from, to, branch));
+    }
+
+    @PostMapping("/loans/rollups/rebuild")
+    @Operation(summary = "Recalcular los resúmenes de un rango de fechas desde los eventos de préstamo")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resúmenes recalculados exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Rango de fechas inválido")
+    })
+    public ResponseEntity<Map<String, Object>> rebuildRollups(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        long written = loanAnalyticsService.rebuildRollups(from, to);
+        return ResponseEntity.ok(Map.of("from", from, "to", to, "rollups", written));
+    }
+}
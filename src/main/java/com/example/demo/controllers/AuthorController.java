@@ -1,18 +1,29 @@
 package com.example.demo.controllers;
 
 import com.example.demo.application.AuthorService;
+import com.example.demo.application.CacheWarmupService;
+import com.example.demo.application.ConditionalRequestService;
+import com.example.demo.controllers.domain.entity.Author;
 import com.example.demo.controllers.dto.AuthorUpdateRequest;
 import com.example.demo.controllers.response.AuthorResponse;
+import com.example.demo.controllers.response.AuthorStatsResponse;
+import com.example.demo.controllers.response.PageResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.util.List;
 
 @Validated
@@ -23,22 +34,47 @@ import java.util.List;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final ConditionalRequestService conditionalRequestService;
+    private final CacheWarmupService cacheWarmupService;
 
     @GetMapping
     @Operation(summary = "Obtener todos los autores")
     @ApiResponse(responseCode = "200", description = "Lista de autores obtenida exitosamente")
     public ResponseEntity<List<AuthorResponse>> getAllAuthors() {
+        cacheWarmupService.recordAccess(CacheWarmupService.Target.AUTHORS, null);
         return ResponseEntity.ok(authorService.getAllAuthors());
     }
 
+    @GetMapping("/directory")
+    @Operation(summary = "Directorio de autores ordenado por popularidad")
+    @ApiResponse(responseCode = "200", description = "Página del directorio obtenida exitosamente")
+    public ResponseEntity<PageResponse<AuthorStatsResponse>> getAuthorDirectory(
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(authorService.getAuthorDirectory(page, size));
+    }
+
+    @GetMapping("/{id}/stats")
+    @Operation(summary = "Obtener las estadísticas de un autor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas exitosamente"),
+            @ApiResponse(responseCode = "404", description = "Autor no encontrado")
+    })
+    public ResponseEntity<AuthorStatsResponse> getAuthorStats(@PathVariable String id) {
+        return ResponseEntity.ok(authorService.getAuthorStats(id));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener un autor por su ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Autor encontrado"),
+            @ApiResponse(responseCode = "200", description = "Autor encontrado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = AuthorResponse.class))),
+            @ApiResponse(responseCode = "304", description = "El autor no cambió desde el ETag enviado en If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Autor no encontrado")
     })
-    public ResponseEntity<AuthorResponse> getAuthorById(@PathVariable String id) {
-        return ResponseEntity.ok(authorService.getAuthorById(id));
+    public ResponseEntity<byte[]> getAuthorById(@PathVariable String id, WebRequest webRequest) {
+        return conditionalRequestService.conditionalGet("author", Author.class, Criteria.where("id").is(id),
+                webRequest, () -> authorService.getCurrentAuthor(id));
     }
 
     @PutMapping("/{id}")
@@ -1,27 +1,48 @@
 package com.example.demo.controllers;
 
+import com.example.demo.application.BookReadModelService;
+import com.example.demo.application.BookSearchService;
 import com.example.demo.application.BookService;
+import com.example.demo.application.CacheWarmupService;
+import com.example.demo.application.ConditionalRequestService;
+import com.example.demo.application.LeaderboardService;
+import com.example.demo.application.NewReleasesService;
+import com.example.demo.application.RecommendationService;
+import com.example.demo.controllers.domain.Model.BookSummary;
 import com.example.demo.controllers.domain.entity.Book;
 import com.example.demo.controllers.dto.BookRequest;
+import com.example.demo.controllers.dto.BookSearchFilter;
+import com.example.demo.controllers.response.FacetedSearchResponse;
 import com.example.demo.controllers.response.BookResponse;
+import com.example.demo.controllers.response.PageResponse;
+import com.example.demo.controllers.response.RankedBookResponse;
+import com.example.demo.controllers.response.ReadModelRebuildResponse;
+import com.example.demo.controllers.response.RecommendationResponse;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.example.demo.controllers.domain.Model.UserSummary;
 
-import java.util.HashMap;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 @Validated
 @RestController
@@ -31,6 +52,13 @@ import java.util.Map;
 public class BookController {
 
     private final BookService bookService;
+    private final LeaderboardService leaderboardService;
+    private final BookSearchService bookSearchService;
+    private final NewReleasesService newReleasesService;
+    private final RecommendationService recommendationService;
+    private final ConditionalRequestService conditionalRequestService;
+    private final CacheWarmupService cacheWarmupService;
+    private final BookReadModelService bookReadModelService;
 
     @PostMapping
     @Operation(summary = "Crear un nuevo libro")
@@ -44,21 +72,34 @@ public class BookController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    @PostMapping("/read-model/rebuild")
+    @Operation(summary = "Reconstruir el modelo de lectura de libros desde la colección de origen")
+    @ApiResponse(responseCode = "200", description = "Modelo de lectura reconstruido")
+    public ResponseEntity<ReadModelRebuildResponse> rebuildReadModel(
+            @RequestParam(value = "parallelism", defaultValue = "4") @Min(1) @Max(16) int parallelism) {
+        return ResponseEntity.ok(bookReadModelService.rebuild(parallelism));
+    }
+
     @GetMapping
     @Operation(summary = "Obtener todos los libros o filtrar por disponibilidad")
     @ApiResponse(responseCode = "200", description = "Lista de libros obtenida exitosamente")
     public ResponseEntity<List<BookResponse>> getAllBooks(@RequestParam(value = "available", required = false) Boolean available) {
+        cacheWarmupService.recordAccess(CacheWarmupService.Target.BOOKS, String.valueOf(available));
         return ResponseEntity.ok(bookService.getBooks(available));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Obtener un libro por su ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Libro encontrado"),
+            @ApiResponse(responseCode = "200", description = "Libro encontrado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookResponse.class))),
+            @ApiResponse(responseCode = "304", description = "El libro no cambió desde el ETag enviado en If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Libro no encontrado")
     })
-    public ResponseEntity<BookResponse> getBookById(@PathVariable String id) {
-        return ResponseEntity.ok(bookService.getBookById(id));
+    public ResponseEntity<byte[]> getBookById(@PathVariable String id, WebRequest webRequest) {
+        cacheWarmupService.recordAccess(CacheWarmupService.Target.BOOK_BY_ID, id);
+        return conditionalRequestService.conditionalGet("book", Book.class, Criteria.where("id").is(id),
+                webRequest, version -> bookReadModelService.getBook(id, version));
     }
 
     @GetMapping("/search")
@@ -68,10 +109,80 @@ public class BookController {
         return ResponseEntity.ok(bookService.searchBooks(query));
     }
 
+    @GetMapping("/faceted-search")
+    @Operation(summary = "Búsqueda facetada: combina filtros y devuelve conteos por categoría, idioma, editorial, año y disponibilidad")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Búsqueda completada"),
+            @ApiResponse(responseCode = "400", description = "Parámetros de búsqueda inválidos")
+    })
+    public ResponseEntity<FacetedSearchResponse> facetedSearch(
+            @RequestParam(value = "category", required = false) Set<String> categories,
+            @RequestParam(value = "language", required = false) String language,
+            @RequestParam(value = "publisher", required = false) String publisher,
+            @RequestParam(value = "yearFrom", required = false) @Min(1) @Max(9999) Integer yearFrom,
+            @RequestParam(value = "yearTo", required = false) @Min(1) @Max(9999) Integer yearTo,
+            @RequestParam(value = "available", required = false) Boolean available,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        BookSearchFilter filter = BookSearchFilter.builder()
+                .categories(categories)
+                .language(language)
+                .publisher(publisher)
+                .yearFrom(yearFrom)
+                .yearTo(yearTo)
+                .available(available)
+                .page(page)
+                .size(size)
+                .build();
+        return ResponseEntity.ok(bookSearchService.search(filter));
+    }
+
+    @GetMapping("/published")
+    @Operation(summary = "Libros publicados en un rango de fechas o de años, del más reciente al más antiguo")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Libros encontrados en el rango"),
+            @ApiResponse(responseCode = "400", description = "Parámetros de fecha o paginación inválidos")
+    })
+    public ResponseEntity<PageResponse<BookSummary>> getBooksPublishedBetween(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "yearFrom", required = false) @Min(1) @Max(9999) Integer yearFrom,
+            @RequestParam(value = "yearTo", required = false) @Min(1) @Max(9999) Integer yearTo,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        // Los filtros por año se convierten a límites de fecha
+        LocalDate start = from != null ? from : (yearFrom != null ? LocalDate.of(yearFrom, 1, 1) : null);
+        LocalDate end = to != null ? to : (yearTo != null ? LocalDate.of(yearTo, 12, 31) : null);
+        return ResponseEntity.ok(bookService.findBooksPublishedBetween(start, end, page, size));
+    }
+
+    @GetMapping("/new-releases")
+    @Operation(summary = "Novedades: libros publicados recientemente")
+    @ApiResponse(responseCode = "200", description = "Novedades obtenidas exitosamente")
+    public ResponseEntity<PageResponse<BookSummary>> getNewReleases(
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(newReleasesService.getNewReleases(page, size));
+    }
+
     @GetMapping("/top-rated")
-    @Operation(summary = "Libros mejor calificados")
-    public ResponseEntity<List<BookResponse>> getTopRated() {
-        return ResponseEntity.ok(bookService.getTopRated());
+    @Operation(summary = "Libros mejor calificados (promedio bayesiano), globales o por categoría")
+    @ApiResponse(responseCode = "200", description = "Ranking obtenido exitosamente")
+    public ResponseEntity<PageResponse<RankedBookResponse>> getTopRated(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(leaderboardService.getTopRated(category, page, size));
+    }
+
+    @GetMapping("/trending")
+    @Operation(summary = "Libros en tendencia según préstamos y reseñas recientes, globales o por categoría")
+    @ApiResponse(responseCode = "200", description = "Ranking obtenido exitosamente")
+    public ResponseEntity<PageResponse<RankedBookResponse>> getTrending(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(leaderboardService.getTrending(category, page, size));
     }
 
     @PutMapping("/{id}")
@@ -99,22 +210,29 @@ public class BookController {
         bookService.deleteBook(id);
     }
 
+    @GetMapping("/{id}/recommendations")
+    @Operation(summary = "Libros recomendados: lectores que tomaron este libro también tomaron...")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recomendaciones obtenidas exitosamente"),
+            @ApiResponse(responseCode = "404", description = "Libro eliminado")
+    })
+    public ResponseEntity<List<RecommendationResponse>> getRecommendations(
+            @PathVariable String id,
+            @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(50) int limit) {
+        return ResponseEntity.ok(recommendationService.getRecommendations(id, limit));
+    }
+
     // Lista de usuarios que eligieron el libro con fav
     @GetMapping("/{bookId}/favorited-by")
-    @Operation(summary = "Obtener usuarios que tienen este libro como favorito")
+    @Operation(summary = "Obtener usuarios que tienen este libro como favorito (paginado)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de usuarios obtenida exitosamente"),
             @ApiResponse(responseCode = "404", description = "Libro no encontrado")
     })
-    public ResponseEntity<?> getUsersWhoFavoritedBook(@PathVariable String bookId) {
-        List<UserSummary> users = bookService.getUsersWhoFavoritedBook(bookId);
-
-        if (users.isEmpty()) {
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "No hay usuarios que tengan este libro como favorito");
-            return ResponseEntity.ok(response);
-        }
-
-        return ResponseEntity.ok(users);
+    public ResponseEntity<PageResponse<UserSummary>> getUsersWhoFavoritedBook(
+            @PathVariable String bookId,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(bookService.getUsersWhoFavoritedBook(bookId, page, size));
     }
-}
\ No newline at end of file
+}
@@ -2,23 +2,35 @@ package com.example.demo.controllers;
 
 import com.example.demo.application.BookService;
 import com.example.demo.application.CategoryService;
+import com.example.demo.application.ConditionalRequestService;
+import com.example.demo.controllers.domain.Model.BookSummary;
 import com.example.demo.controllers.domain.entity.Categories;
 import com.example.demo.controllers.domain.repository.CategoriesRepository;
 import com.example.demo.controllers.dto.CategoryUpdateRequest;
 import com.example.demo.controllers.exception.CategoryNotFoundException;
 import com.example.demo.controllers.response.BookResponse;
 import com.example.demo.controllers.response.CategoryResponse;
+import com.example.demo.controllers.response.PageResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
+@Validated
 @RestController
 @RequestMapping("/category")
 @Tag(name = "Controlador para las categorías de los libros")
@@ -28,18 +40,23 @@ public class CategoryController {
     private final CategoryService categoryService;
     private final CategoriesRepository categoriesRepository;
     private final BookService bookService;
+    private final ConditionalRequestService conditionalRequestService;
 
     @GetMapping("/{name}")
     @Operation(summary = "Buscar un género y los libros asociados por su nombre")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Categoría encontrada"),
+            @ApiResponse(responseCode = "200", description = "Categoría encontrada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryResponse.class))),
+            @ApiResponse(responseCode = "304", description = "La categoría no cambió desde el ETag enviado en If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Categoría no encontrada")
     })
-    public ResponseEntity<CategoryResponse> getGenreByName(@PathVariable String name) {
-        return categoriesRepository.findByName(name)
-                .map(this::mapToGenreResponse)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getGenreByName(@PathVariable String name, WebRequest webRequest) {
+        Categories category = categoriesRepository.findByNameIgnoringAccents(name)
                 .orElseThrow(() -> new CategoryNotFoundException("Género no encontrado: " + name));
+        return conditionalRequestService.conditionalGet("category", Categories.class, Criteria.where("id").is(category.getId()),
+                webRequest, () -> categoriesRepository.findById(category.getId())
+                        .map(this::mapToGenreResponse)
+                        .orElseThrow(() -> new CategoryNotFoundException("Género no encontrado: " + name)));
     }
 
     @PutMapping("/{name}")
@@ -55,19 +72,20 @@ public class CategoryController {
         return ResponseEntity.ok(mapToGenreResponse(updateCategory));
     }
 
-    /*@GetMapping("/{name}/books-by-query")
-    @Operation(summary = "Buscar libros por género (consulta directa a libros)")
+    @GetMapping("/{name}/books")
+    @Operation(summary = "Buscar libros por género (consulta indexada, paginada y ordenada por calificación o fecha)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Libros encontrados para el género"),
-            @ApiResponse(responseCode = "404", description = "Género no encontrado o sin libros asociados")
+            @ApiResponse(responseCode = "400", description = "Parámetros de paginación u orden inválidos"),
+            @ApiResponse(responseCode = "404", description = "Género no encontrado")
     })
-    public ResponseEntity<List<BookResponse>> getBooksByGenreQuery(@PathVariable String name) {
-        List<BookResponse> books = bookService.findBooksByGenre(name);
-        if (books.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(books);
-    }*/
+    public ResponseEntity<PageResponse<BookSummary>> getBooksByGenre(
+            @PathVariable String name,
+            @RequestParam(value = "sort", defaultValue = "rating") @Pattern(regexp = "rating|date") String sort,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(bookService.findBooksByCategory(name, sort, page, size));
+    }
 
     @GetMapping("/{name}/books-in-memory")
     @Operation(summary = "Buscar libros por género (filtrado en memoria)")
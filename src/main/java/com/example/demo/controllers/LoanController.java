@@ -1,5 +1,6 @@
 package com.example.demo.controllers;
 
+import com.example.demo.application.LoanArchiveService;
 import com.example.demo.application.LoanService;
 import com.example.demo.controllers.domain.entity.Loan;
 import com.example.demo.controllers.dto.LoanRequest;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/loans")
@@ -22,6 +24,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class LoanController {
     private final LoanService loanService;
+    private final LoanArchiveService loanArchiveService;
 
 
     @PostMapping
@@ -65,6 +68,20 @@ public class LoanController {
         return ResponseEntity.ok(loanService.getLoanById(id));
     }
 
+    @PostMapping("/archive")
+    @Operation(summary = "Mover al archivo los préstamos entregados antiguos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Préstamos archivados exitosamente"),
+            @ApiResponse(responseCode = "409", description = "Ya hay un archivado en curso")
+    })
+    public ResponseEntity<Map<String, Object>> archiveLoans() {
+        long archived = loanArchiveService.archive();
+        if (archived < 0) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Ya hay un archivado en curso"));
+        }
+        return ResponseEntity.ok(Map.of("archived", archived));
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Eliminar un préstamo")
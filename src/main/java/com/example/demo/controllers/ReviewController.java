@@ -5,20 +5,26 @@ package com.example.demo.controllers;
 import com.example.demo.controllers.domain.entity.Book;
 import com.example.demo.controllers.dto.ReviewRequest;
 import com.example.demo.controllers.dto.ReviewUpdateRequest;
+import com.example.demo.controllers.response.PageResponse;
 import com.example.demo.controllers.response.ReviewResponse;
 import com.example.demo.application.ReviewService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 
 import java.util.List;
 
+@Validated
 @RestController
 @RequestMapping("/api/reviews")
 @Tag(name = "Reviews", description = "Operaciones relacionadas con las reseñas de libros")
@@ -35,10 +41,20 @@ public class ReviewController {
     }
 
     @GetMapping("/book/{bookId}")
-    @Operation(summary = "Obtener reseñas por ID del libro")
-    public ResponseEntity<List<ReviewResponse>> getReviewsByBookId(@PathVariable String bookId) {
-        List<ReviewResponse> reviews = reviewService.getReviewsByBookId(bookId);
-        return ResponseEntity.ok(reviews);
+    @Operation(summary = "Obtener reseñas por ID del libro, paginadas y ordenadas por fecha (recent), calificación (rating) o utilidad (helpful)")
+    public ResponseEntity<PageResponse<ReviewResponse>> getReviewsByBookId(
+            @PathVariable String bookId,
+            @RequestParam(value = "sort", defaultValue = "recent") @Pattern(regexp = "recent|rating|helpful") String sort,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(reviewService.getReviewsByBookId(bookId, sort, page, size));
+    }
+
+    @PostMapping("/{id}/helpful")
+    @Operation(summary = "Marcar una reseña como útil (un voto por usuario)")
+    public ResponseEntity<String> markHelpful(@PathVariable String id, @RequestParam String userId) {
+        reviewService.markHelpful(id, userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body("Voto registrado exitosamente");
     }
 
     @GetMapping("/user/{userId}")
@@ -0,0 +1,45 @@
+package com.example.demo.controllers;
+
+import com.example.demo.application.SuggestionService;
+import com.example.demo.controllers.response.SuggestionResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Validated
+@RestController
+@RequestMapping("/suggest")
+@Tag(name = "Autocompletado", description = "Sugerencias de títulos, autores y usuarios mientras se escribe")
+@RequiredArgsConstructor
+public class SuggestionController {
+
+    private final SuggestionService suggestionService;
+
+    @GetMapping
+    @Operation(summary = "Sugerencias para un prefijo (sin distinguir tildes ni mayúsculas), ordenadas por popularidad")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugerencias obtenidas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Parámetros inválidos")
+    })
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam("prefix") @NotBlank @Size(max = 100) String prefix,
+            @RequestParam(value = "type", defaultValue = "all") @Pattern(regexp = "title|author|user|all") String type,
+            @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(10) int limit) {
+        return ResponseEntity.ok(suggestionService.suggest(prefix, type, limit));
+    }
+}
@@ -2,12 +2,17 @@ package com.example.demo.controllers;
 
 import com.example.demo.application.UserService;
 import com.example.demo.controllers.dto.UserRequest;
+import com.example.demo.controllers.response.LoanSummaryResponse;
+import com.example.demo.controllers.response.PageResponse;
 import com.example.demo.controllers.response.UserResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 import com.example.demo.controllers.domain.Model.BookSummary;
 
 
+import java.time.YearMonth;
 import java.util.List;
 
 @Validated
@@ -58,6 +64,25 @@ public class UserController {
         return ResponseEntity.ok(userService.getUserById(id));
     }
 
+    @GetMapping("/{id}/history")
+    @Operation(summary = "Obtener el historial de préstamos de un usuario, paginado y filtrado por mes (yyyy-MM)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Historial obtenido exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Parámetros inválidos"),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado")
+    })
+    public ResponseEntity<PageResponse<LoanSummaryResponse>> getReadingHistory(
+            @PathVariable String id,
+            @RequestParam(value = "from", required = false) @Pattern(regexp = "\\d{4}-(0[1-9]|1[0-2])") String from,
+            @RequestParam(value = "to", required = false) @Pattern(regexp = "\\d{4}-(0[1-9]|1[0-2])") String to,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(userService.getReadingHistory(id,
+                from != null ? YearMonth.parse(from) : null,
+                to != null ? YearMonth.parse(to) : null,
+                page, size));
+    }
+
     @GetMapping("/name")
     @Operation(summary = "Obtener todos los usuarios según nombre")
     @ApiResponse(responseCode = "200", description = "Lista de usuarios obtenida exitosamente")
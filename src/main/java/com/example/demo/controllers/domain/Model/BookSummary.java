@@ -1,5 +1,7 @@
 package com.example.demo.controllers.domain.Model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -7,6 +9,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 
 /**
  * Clase que representa un resumen de un libro. Se utiliza para incrustar información
@@ -33,4 +36,9 @@ public class BookSummary implements Serializable {
     @Schema(description = "Calificación promedio del libro", example = "4.5")
     private Double averageRating;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @Schema(description = "Fecha de publicación del libro", example = "1967-05-30")
+    private LocalDate publicationDate;
+
 }
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.*;
@@ -25,6 +26,10 @@ public class Author {
     @Id
     private String id;
 
+    @Version
+    @Schema(hidden = true)
+    private Long version;
+
     @NotBlank(message = "El nombre del autor es obligatorio")
     @Indexed(unique = true)
     @Schema(description = "Nombre completo del autor", example = "Gabriel García Márquez")
@@ -0,0 +1,50 @@
+package com.example.demo.controllers.domain.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Vista materializada con los agregados de cada autor. La genera un pipeline de agregación
+ * sobre "libros" que termina en $merge; el ID es el nombre del autor, que es como los libros
+ * lo referencian.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "estadisticas_autores")
+@CompoundIndex(name = "popularity_id", def = "{'popularity': -1, '_id': 1}")
+@Schema(description = "Estadísticas precalculadas de un autor")
+public class AuthorStats {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String authorId;
+
+    private long bookCount;
+
+    private double averageRating;
+
+    private long totalRatings;
+
+    private long totalLoans;
+
+    private long activeLoans;
+
+    private long totalFavorites;
+
+    private long popularity;
+
+    private Instant updatedAt;
+}
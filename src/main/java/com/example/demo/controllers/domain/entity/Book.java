@@ -7,16 +7,18 @@ import lombok.NoArgsConstructor;
 import lombok.Builder;
 import jakarta.validation.constraints.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import com.example.demo.controllers.domain.Model.UserSummary;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,11 +28,22 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection= "libros")
+@CompoundIndexes({
+        // Consultas por categoría (índice multikey) ordenadas por calificación o fecha de publicación.
+        // El _id final cubre el desempate del orden, así la paginación no necesita ordenar en memoria
+        @CompoundIndex(name = "categories_rating_id", def = "{'categories': 1, 'averageRating': -1, '_id': 1}"),
+        @CompoundIndex(name = "categories_publicationDate_id", def = "{'categories': 1, 'publicationDate': -1, '_id': 1}"),
+        @CompoundIndex(name = "publicationDate_id", def = "{'publicationDate': -1, '_id': 1}")
+})
 @Schema(description = "Entidad que representa a un libro con los autores y generos relacionados a este")
 public class Book {
     @Id
     private String id;
 
+    @Version
+    @Schema(hidden = true)
+    private Long version;
+
     @NotBlank(message = "El título es obligatorio")
     @Schema(description = "Título del libro")
     @Size(min = 1, max = 200, message = "El título debe tener entre 1 y 200 caracteres")
@@ -55,6 +68,7 @@ public class Book {
     private String isbn;
 
     @NotBlank(message = "La editorial es obligatoria")
+    @Indexed
     private String publisher;
 
     @NotBlank(message = "La fecha de publicación es obligatoria")
@@ -65,10 +79,11 @@ public class Book {
     private Integer pageCount;
 
     @NotBlank(message = "El idioma es obligatorio")
+    @Indexed
     private String language;
 
-    @Schema(description = "Lista de usuarios que tienen este libro como favorito")
-    private List<UserSummary> favoredByUsers = new ArrayList<>();
+    @Schema(description = "Cantidad de usuarios que tienen este libro como favorito")
+    private Integer favoritesCount;
 
 
     private String coverImageUrl;
@@ -86,6 +101,10 @@ public class Book {
     @Schema(description = "Lista de los prestamos del libro")
     private List<LoanSummary> loans = new ArrayList<>();
 
+    // Préstamos movidos a "prestamos_archivo": el total histórico es loans.size() + este valor
+    @Schema(description = "Cantidad de préstamos archivados del libro")
+    private Integer archivedLoansCount;
+
     @Schema(description = "Disponibilidad del libro para préstamo por defecto 'true'")
     private Boolean available = true;
 
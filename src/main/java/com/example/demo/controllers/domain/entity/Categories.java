@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.*;
@@ -24,6 +25,10 @@ public class Categories {
     @Id
     private String id;
 
+    @Version
+    @Schema(hidden = true)
+    private Long version;
+
     @NotBlank(message = "La categoría es obligatoria")
     @Indexed(unique = true)
     @Schema(description = "Nombre del categoria")
@@ -0,0 +1,32 @@
+package com.example.demo.controllers.domain.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Último resume token procesado de un change stream. El ID es el nombre de la colección
+ * observada; al reiniciar, la suscripción continúa desde este punto.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "tokens_change_stream")
+@Schema(description = "Posición de reanudación de un change stream")
+public class ChangeStreamToken {
+
+    @Id
+    private String id;
+
+    @Schema(description = "Resume token en JSON extendido")
+    private String token;
+
+    private Instant updatedAt;
+}
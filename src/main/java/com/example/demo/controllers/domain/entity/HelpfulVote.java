@@ -0,0 +1,37 @@
+package com.example.demo.controllers.domain.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Voto "útil" de un usuario sobre una reseña. El índice único (reviewId, userId)
+ * garantiza un solo voto por usuario y reseña.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "votos_utiles")
+@CompoundIndex(name = "review_user", def = "{'reviewId': 1, 'userId': 1}", unique = true)
+@Schema(description = "Voto de utilidad de un usuario sobre una reseña")
+public class HelpfulVote {
+
+    @Id
+    private String id;
+
+    @Schema(description = "ID de la reseña votada")
+    private String reviewId;
+
+    @Schema(description = "ID del usuario que votó")
+    private String userId;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,41 @@
+package com.example.demo.controllers.domain.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Clave de caché muy consultada, registrada por el sketch de frecuencias de acceso y usada
+ * para precalentar las cachés al arrancar. El ID es "destino|clave".
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "claves_calientes")
+@Schema(description = "Clave de caché frecuente usada para el precalentamiento")
+public class HotCacheKey {
+
+    @Id
+    private String id;
+
+    @Schema(description = "Lectura que se precalienta (BOOKS, BOOK_BY_ID, AUTHORS, CATEGORIES)")
+    private String target;
+
+    @Schema(description = "Argumento de la lectura (ID del libro, filtro de disponibilidad...)")
+    private String key;
+
+    @Schema(description = "Frecuencia estimada de acceso")
+    private long score;
+
+    // Las claves que dejan de ser frecuentes desaparecen solas
+    @Indexed(expireAfter = "7d")
+    private Instant updatedAt;
+}
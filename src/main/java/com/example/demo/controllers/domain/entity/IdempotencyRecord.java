@@ -0,0 +1,46 @@
+package com.example.demo.controllers.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Respuesta guardada para una clave Idempotency-Key. Mientras la petición original se
+ * ejecuta el registro queda en estado PROCESSING hasta lockedUntil; al terminar guarda la
+ * respuesta para devolverla en los reintentos. El índice TTL elimina los registros pasadas 24 horas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "claves_idempotencia")
+public class IdempotencyRecord {
+
+    public enum Status { PROCESSING, COMPLETED }
+
+    @Id
+    private String id;
+
+    // Hash de método, ruta y cuerpo de la petición original
+    private String fingerprint;
+
+    private Status status;
+
+    private int responseStatus;
+
+    private String contentType;
+
+    private byte[] responseBody;
+
+    @Indexed(expireAfter = "24h")
+    private Instant createdAt;
+
+    // Fin del bloqueo de la petición en curso; vencido, otro reintento puede retomarla
+    private Instant lockedUntil;
+}
@@ -10,6 +10,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -24,6 +25,10 @@ public class Loan {
     @Id
     private String id;
 
+    @Version
+    @Schema(hidden = true)
+    private Long version;
+
     @NotBlank(message = "El estado del prestamo es obligatorio")
     @Schema(description = "Estado del prestamo", example = "Entregado, vencido, Prestado")
     private String status;
@@ -39,6 +44,9 @@ public class Loan {
     @Schema(description = "Fecha de la devolución", example = "2025-03-03")
     private LocalDate returnDate;
 
+    @Schema(description = "Sede de la biblioteca donde se hizo el préstamo", example = "Principal")
+    private String branch;
+
     @Schema(description = "Información resumida del libro que fue prestado")
     private BookSummary book;
 
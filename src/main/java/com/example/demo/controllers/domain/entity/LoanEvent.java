@@ -0,0 +1,61 @@
+package com.example.demo.controllers.domain.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Evento de circulación (préstamo o devolución) en la colección de series de tiempo
+ * "eventos_prestamo". Es la fuente de la que se derivan los resúmenes por hora y por día
+ * ({@link LoanRollup}) y desde la que se pueden reconstruir.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "eventos_prestamo")
+@TimeSeries(timeField = "timestamp", metaField = "meta", granularity = Granularity.MINUTES)
+@Schema(description = "Evento de préstamo o devolución de un libro")
+public class LoanEvent {
+
+    public static final String LOAN = "LOAN";
+    public static final String RETURN = "RETURN";
+
+    @Id
+    private String id;
+
+    private Instant timestamp;
+
+    private Meta meta;
+
+    private String loanId;
+
+    private String bookId;
+
+    private String userId;
+
+    private List<String> categories;
+
+    // Solo en devoluciones
+    private Long loanDurationDays;
+
+    private Boolean overdue;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Meta {
+        private String type;
+        private String branch;
+    }
+}
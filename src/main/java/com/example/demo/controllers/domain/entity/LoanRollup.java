@@ -0,0 +1,50 @@
+package com.example.demo.controllers.domain.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Contadores de circulación precalculados por intervalo (hora o día), sede y categoría. El valor
+ * "*" en sede o categoría representa el total de todas. El ID es
+ * "granularidad|inicio del intervalo|sede|categoría", así que cada evento incrementa documentos
+ * conocidos de antemano con un upsert.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "resumen_prestamos")
+@CompoundIndex(name = "granularity_branch_category_bucket",
+        def = "{'granularity': 1, 'branch': 1, 'category': 1, 'bucket': 1}")
+@Schema(description = "Resumen de préstamos y devoluciones de un intervalo")
+public class LoanRollup {
+
+    public static final String ALL = "*";
+
+    @Id
+    private String id;
+
+    private String granularity;
+
+    private Instant bucket;
+
+    private String branch;
+
+    private String category;
+
+    private long loans;
+
+    private long returns;
+
+    private long overdueReturns;
+
+    private long totalLoanDays;
+}
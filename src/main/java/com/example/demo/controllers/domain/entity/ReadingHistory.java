@@ -0,0 +1,45 @@
+package com.example.demo.controllers.domain.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Historial de lectura de un usuario agrupado por mes (un documento por usuario y mes).
+ * Mantiene acotado el tamaño de cada documento y permite paginar el historial completo
+ * sin cargar todos los préstamos embebidos en el usuario.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "historial_lectura")
+@CompoundIndex(name = "user_month", def = "{'userId': 1, 'month': -1}")
+@Schema(description = "Préstamos de un usuario durante un mes")
+public class ReadingHistory {
+
+    @Id
+    @Schema(description = "Identificador compuesto: <userId>:<yyyy-MM>")
+    private String id;
+
+    @Schema(description = "ID del usuario")
+    private String userId;
+
+    @Schema(description = "Mes del préstamo", example = "2025-02")
+    private String month;
+
+    @Schema(description = "Cantidad de préstamos del mes")
+    private int count;
+
+    @Builder.Default
+    @Schema(description = "Préstamos del mes en orden de registro")
+    private List<Users.LoanSummary> loans = new ArrayList<>();
+}
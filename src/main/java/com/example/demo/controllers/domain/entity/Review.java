@@ -12,6 +12,8 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -22,6 +24,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "Reseñas")
+@CompoundIndexes({
+        // El _id final cubre el desempate de ReviewService.reviewSort (sin orden en memoria)
+        @CompoundIndex(name = "book_createdAt_id", def = "{'book.bookId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "book_rating_id", def = "{'book.bookId': 1, 'rating': -1, '_id': -1}"),
+        @CompoundIndex(name = "book_helpful_id", def = "{'book.bookId': 1, 'helpfulCount': -1, '_id': -1}")
+})
 public class Review {
 
     @Id
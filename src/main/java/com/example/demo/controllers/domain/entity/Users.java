@@ -12,6 +12,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -25,12 +27,17 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection= "usuarios")
+@CompoundIndex(name = "favorites_book", def = "{'favorites.bookId': 1, '_id': 1}")
 @Schema(description = "Entidad que representa a un usuario y sus libros favoritos")
 public class Users {
 
     @Id
     private String id;
 
+    @Version
+    @Schema(hidden = true)
+    private Long version;
+
     @NotBlank(message = "El número de la tarjeta es obligatorio")
     @Indexed(unique = true)
     @Schema(description = "Número de tarjeta que identifica al usuario", example = "U-2025-001")
@@ -1,15 +1,40 @@
 package com.example.demo.controllers.domain.repository;
 
+import com.example.demo.application.DataAccessProfile;
 import com.example.demo.controllers.domain.entity.Author;
+import org.springframework.data.mongodb.core.annotation.Collation;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface AuthorRepository extends MongoRepository<Author, String> {
     /**
-     * Busca un autor por su nombre.
+     * Busca un autor por su nombre exacto (índice único binario de name).
      * @param name Nombre del autor.
      * @return Un Optional que contiene al autor si se encuentra.
      */
     Optional<Author> findByName(String name);
+
+    /**
+     * Autores cuyo nombre coincide sin distinguir tildes ni mayúsculas (índice name_es).
+     * Puede devolver varios si conviven variantes que solo difieren en tildes.
+     */
+    @Query("{ 'name': ?0 }")
+    @Collation(DataAccessProfile.SPANISH_COLLATION)
+    List<Author> findAllByNameIgnoringAccents(String name);
+
+    /**
+     * Resuelve el nombre escrito: primero la coincidencia exacta y, si no la hay, el único autor
+     * que coincide sin tildes ni mayúsculas. Si varias variantes coinciden no se elige ninguna.
+     */
+    default Optional<Author> findByNameIgnoringAccents(String name) {
+        Optional<Author> exact = findByName(name);
+        if (exact.isPresent()) {
+            return exact;
+        }
+        List<Author> matches = findAllByNameIgnoringAccents(name);
+        return matches.size() == 1 ? Optional.of(matches.get(0)) : Optional.empty();
+    }
 }
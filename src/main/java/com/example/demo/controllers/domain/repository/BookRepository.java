@@ -1,9 +1,13 @@
 package com.example.demo.controllers.domain.repository;
 
+import com.example.demo.application.DataAccessProfile;
 import com.example.demo.controllers.domain.entity.Book;
+import org.springframework.data.mongodb.core.annotation.Collation;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +32,7 @@ public interface BookRepository extends MongoRepository <Book, String> {
      * @param title Título o parte del título a buscar
      * @return Lista de libros que coinciden con el título
      */
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Book> findByTitleContainingIgnoreCase(String title);
 
     /**
@@ -35,23 +40,44 @@ public interface BookRepository extends MongoRepository <Book, String> {
      * @param author Nombre del autor o parte del mismo
      * @return Lista de libros del autor
      */
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Book> findByAuthorContainingIgnoreCase(String author);
 
     /**
-     * Busca libros por género
+     * Busca libros por nombre exacto del autor (comparación binaria, sin intercalación)
+     * @param author Nombre completo del autor
+     * @return Lista de libros del autor
+     */
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
+    List<Book> findByAuthor(String author);
+
+    /**
+     * Busca libros por género, sin distinguir tildes ni mayúsculas (índice categories_es)
      * @param genre Género a buscar
      * @return Lista de libros que pertenecen al género especificado
      */
-    @Query("{ 'genres': { $in: [?0] } }")
+    @Query("{ 'categories': ?0 }")
+    @Collation(DataAccessProfile.SPANISH_COLLATION)
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Book> findByGenre(String genre);
 
     /**
-     * Busca libros publicados después de un año específico
+     * Busca libros publicados en una fecha igual o posterior a la indicada
+     * @param date Fecha mínima de publicación
+     * @return Lista de libros publicados desde la fecha especificada
+     */
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
+    List<Book> findByPublicationDateGreaterThanEqual(LocalDate date);
+
+    /**
+     * Busca libros publicados después de un año específico. El año se convierte a un límite
+     * de fecha para comparar contra publicationDate y usar su índice.
      * @param year Año de publicación
      * @return Lista de libros publicados después del año especificado
      */
-    @Query("{ 'publicationDate': { $gte: ?0 } }")
-    List<Book> findByPublicationYearAfter(int year);
+    default List<Book> findByPublicationYearAfter(int year) {
+        return findByPublicationDateGreaterThanEqual(LocalDate.of(year + 1, 1, 1));
+    }
 
     /**
      * Busca libros con una calificación mínima
@@ -59,6 +85,7 @@ public interface BookRepository extends MongoRepository <Book, String> {
      * @return Lista de libros con calificación igual o superior a la especificada
      */
     @Query("{ 'averageRating': { $gte: ?0 } }")
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Book> findByRatingGreaterThanEqual(double minRating);
 
     /**
@@ -66,6 +93,7 @@ public interface BookRepository extends MongoRepository <Book, String> {
      * @param publisher Nombre de la editorial
      * @return Lista de libros publicados por la editorial
      */
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Book> findByPublisher(String publisher);
 
     /**
@@ -87,6 +115,7 @@ public interface BookRepository extends MongoRepository <Book, String> {
      * @param available true para disponibles, false para prestados
      * @return Lista de libros según disponibilidad
      */
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Book> findByAvailable(boolean available);
 
     /**
@@ -94,15 +123,7 @@ public interface BookRepository extends MongoRepository <Book, String> {
      * @param userId id del usuario a buscar
      * @return Lista de ibros encontrados
      */
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Book> findByLoans_User_Id(String userId);
 
-    List<Book> findByAverageRating(Integer rating);
-
-    /**
-     * Encuentra libros por el id del usuario que tiene en favoritos
-     * @param userId id del usuario a buscar
-     * @return Lista de ibros encontrados
-     */
-    List<Book> findByFavoredByUsers_UserId(String userId);
-
 }
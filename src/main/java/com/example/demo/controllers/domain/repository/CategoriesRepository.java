@@ -1,11 +1,40 @@
 package com.example.demo.controllers.domain.repository;
 
+import com.example.demo.application.DataAccessProfile;
 import com.example.demo.controllers.domain.entity.Categories;
+import org.springframework.data.mongodb.core.annotation.Collation;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CategoriesRepository extends MongoRepository<Categories, String> {
 
+    /**
+     * Busca una categoría por su nombre exacto (índice único binario de name).
+     */
     Optional<Categories> findByName(String name);
+
+    /**
+     * Categorías cuyo nombre coincide sin distinguir tildes ni mayúsculas (índice name_es).
+     * Puede devolver varias si conviven variantes que solo difieren en tildes.
+     */
+    @Query("{ 'name': ?0 }")
+    @Collation(DataAccessProfile.SPANISH_COLLATION)
+    List<Categories> findAllByNameIgnoringAccents(String name);
+
+    /**
+     * Resuelve el nombre escrito por el usuario: primero la coincidencia exacta y, si no la hay,
+     * la única categoría que coincide sin tildes ni mayúsculas. Si varias variantes coinciden
+     * no se elige ninguna.
+     */
+    default Optional<Categories> findByNameIgnoringAccents(String name) {
+        Optional<Categories> exact = findByName(name);
+        if (exact.isPresent()) {
+            return exact;
+        }
+        List<Categories> matches = findAllByNameIgnoringAccents(name);
+        return matches.size() == 1 ? Optional.of(matches.get(0)) : Optional.empty();
+    }
 }
@@ -1,6 +1,8 @@
 package com.example.demo.controllers.domain.repository;
 
+import com.example.demo.application.DataAccessProfile;
 import com.example.demo.controllers.domain.entity.Loan;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
@@ -8,6 +10,7 @@ import java.util.Optional;
 
 public interface LoanRepository extends MongoRepository<Loan, String> {
 
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Loan> findByUser_UserId(String userId);
 
     Optional<Loan> findByUser_CardNum(String cardNum);
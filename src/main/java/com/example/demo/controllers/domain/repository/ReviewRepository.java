@@ -1,8 +1,12 @@
 package com.example.demo.controllers.domain.repository;
 
+import com.example.demo.application.DataAccessProfile;
 import com.example.demo.controllers.domain.entity.Review;
 import com.example.demo.controllers.domain.entity.Review;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
@@ -11,11 +15,18 @@ import java.util.List;
 public interface ReviewRepository extends MongoRepository<Review, String> {
 
     // Buscar reseñas por ID del libro
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Review> findByBook_BookId(String bookId);
 
+    // Reseñas paginadas por libro (usa los índices compuestos book.bookId + criterio de orden)
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
+    Page<Review> findByBook_BookId(String bookId, Pageable pageable);
+
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Review> findByRating(int rating);
 
     // --- NUEVO: Buscar reseñas por ID del usuario ---
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Review> findByUser_UserId(String userId);
 
     // Calcular promedio de calificaciones por libro usando agregación
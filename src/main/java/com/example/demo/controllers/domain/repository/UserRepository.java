@@ -1,6 +1,9 @@
 package com.example.demo.controllers.domain.repository;
 
+import com.example.demo.application.DataAccessProfile;
 import com.example.demo.controllers.domain.entity.Users;
+import org.springframework.data.mongodb.core.annotation.Collation;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
@@ -13,8 +16,18 @@ public interface UserRepository extends MongoRepository<Users, String> {
      * @param fullName Nombre del usuario a buscar
      * @return Optional con el usuario si se encuentra
      */
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
     List<Users> findByFullNameContainingIgnoreCase(String fullName);
 
+    /**
+     * Busca usuarios por nombre completo, sin distinguir tildes ni mayúsculas (índice fullName_es)
+     * @param fullName Nombre completo del usuario
+     * @return Lista de usuarios con ese nombre
+     */
+    @Collation(DataAccessProfile.SPANISH_COLLATION)
+    @Meta(maxExecutionTimeMs = DataAccessProfile.REPOSITORY_MAX_TIME_MS)
+    List<Users> findByFullName(String fullName);
+
     /**
      * Verifica si existe un usuario con el número de tarjeta especificado
      * @param cardNum Número de tarjeta a verificar
@@ -0,0 +1,102 @@
+package com.example.demo.controllers.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Filtros combinables para la búsqueda facetada de libros. Todos los campos son opcionales.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Filtros para la búsqueda facetada de libros")
+public class BookSearchFilter {
+
+    @Schema(description = "Categorías (el libro debe pertenecer a todas)", example = "[\"Realismo magico\"]")
+    private Set<String> categories;
+
+    @Schema(description = "Idioma del libro (código ISO 639-1)", example = "es")
+    private String language;
+
+    @Schema(description = "Editorial", example = "Editorial Sudamericana")
+    private String publisher;
+
+    @Schema(description = "Año de publicación mínimo (inclusive)", example = "1950", minimum = "1", maximum = "9999")
+    private Integer yearFrom;
+
+    @Schema(description = "Año de publicación máximo (inclusive)", example = "2000", minimum = "1", maximum = "9999")
+    private Integer yearTo;
+
+    @Schema(description = "Disponibilidad para préstamo")
+    private Boolean available;
+
+    @Builder.Default
+    private int page = 0;
+
+    @Builder.Default
+    private int size = 20;
+
+    /**
+     * Copia del filtro con los valores tal como se consultan: categorías sin espacios sobrantes,
+     * sin vacías y ordenadas; idioma y editorial recortados (null si quedan vacíos). La clave de
+     * caché y la consulta se construyen ambas desde esta copia.
+     */
+    public BookSearchFilter normalized() {
+        Set<String> normalizedCategories = categories == null ? null : categories.stream()
+                .filter(category -> category != null && !category.isBlank())
+                .map(String::trim)
+                .collect(Collectors.toCollection(TreeSet::new));
+        return toBuilder()
+                .categories(normalizedCategories == null || normalizedCategories.isEmpty() ? null : normalizedCategories)
+                .language(trimToNull(language))
+                .publisher(trimToNull(publisher))
+                .build();
+    }
+
+    /**
+     * Firma del filtro normalizado: dos filtros que producen la misma consulta (mismo conjunto
+     * de categorías en distinto orden o con espacios) producen la misma clave de caché. Cada
+     * valor lleva delante su longitud, y las categorías su cantidad, así que ningún texto de
+     * usuario (comas, barras) puede hacer que dos filtros distintos compartan firma.
+     */
+    public String signature() {
+        BookSearchFilter normalized = normalized();
+        StringBuilder key = new StringBuilder();
+        if (normalized.categories == null) {
+            key.append('-');
+        } else {
+            key.append(normalized.categories.size()).append('#');
+            normalized.categories.forEach(category -> appendField(key, category));
+        }
+        appendField(key, normalized.language);
+        appendField(key, normalized.publisher);
+        appendField(key, yearFrom);
+        appendField(key, yearTo);
+        appendField(key, available);
+        appendField(key, page);
+        appendField(key, size);
+        return key.toString();
+    }
+
+    // null se escribe como "-"; cualquier otro valor como "<longitud>:<valor>"
+    private static void appendField(StringBuilder key, Object value) {
+        if (value == null) {
+            key.append('-');
+            return;
+        }
+        String text = value.toString();
+        key.append(text.length()).append(':').append(text);
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
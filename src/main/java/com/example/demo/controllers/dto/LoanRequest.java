@@ -19,6 +19,9 @@ public class LoanRequest {
     @Schema(description = "Fecha de devolución esperada (No es obligatoria, se calculará 30 dias después de le fecha del prestamo)", example = "2025-03-04")
     private LocalDate expectedReturnDate;
 
+    @Schema(description = "Sede donde se hace el préstamo (Si no se envía, se asigna la sede Principal)", example = "Principal")
+    private String branch;
+
     @NotBlank(message = "El ID del libro es obligatorio")
     @Schema(description = "Id del libro", requiredMode = Schema.RequiredMode.REQUIRED)
     private String bookId;
@@ -0,0 +1,7 @@
+package com.example.demo.controllers.exception;
+
+public class HelpfulVoteAlreadyExistsException extends RuntimeException {
+    public HelpfulVoteAlreadyExistsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.controllers.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Estadísticas de un autor: libros, calificaciones, préstamos y popularidad")
+public class AuthorStatsResponse implements Serializable {
+
+    @Schema(description = "ID del autor", example = "60c72b2f9b1d8c001f8e4a3d")
+    private String authorId;
+
+    @Schema(description = "Nombre del autor", example = "Gabriel García Márquez")
+    private String name;
+
+    @Schema(description = "Cantidad de libros del autor", example = "12")
+    private long bookCount;
+
+    @Schema(description = "Calificación promedio ponderada por número de reseñas", example = "4.3")
+    private double averageRating;
+
+    @Schema(description = "Total de reseñas de sus libros", example = "340")
+    private long totalRatings;
+
+    @Schema(description = "Total de préstamos de sus libros", example = "125")
+    private long totalLoans;
+
+    @Schema(description = "Préstamos activos (prestados o vencidos)", example = "4")
+    private long activeLoans;
+
+    @Schema(description = "Veces que sus libros fueron marcados como favoritos", example = "87")
+    private long totalFavorites;
+
+    @Schema(description = "Popularidad: préstamos + favoritos + reseñas", example = "552")
+    private long popularity;
+
+    @Schema(description = "Momento del último recálculo")
+    private Instant updatedAt;
+}
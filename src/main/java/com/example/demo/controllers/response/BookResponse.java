@@ -40,6 +40,7 @@ public class BookResponse implements Serializable {
     private String coverImageUrl;
     private Double averageRating;
     private Integer ratingsCount;
+    private Integer favoritesCount;
     private List<ReviewResponse> reviews;
     private Boolean available;
     private List<LoanSummaryResponse> loans;
@@ -0,0 +1,36 @@
+package com.example.demo.controllers.response;
+
+import com.example.demo.controllers.domain.Model.BookSummary;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de una búsqueda facetada: página de libros y conteos por faceta")
+public class FacetedSearchResponse implements Serializable {
+
+    @Schema(description = "Página de libros que cumplen los filtros")
+    private PageResponse<BookSummary> results;
+
+    @Schema(description = "Conteos por faceta (categories, language, publisher, year, available)")
+    private Map<String, List<FacetCount>> facets;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Valor de una faceta y cantidad de libros que lo tienen")
+    public static class FacetCount implements Serializable {
+        private String value;
+        private long count;
+    }
+}
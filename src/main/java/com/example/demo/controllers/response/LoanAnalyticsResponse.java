@@ -0,0 +1,59 @@
+package com.example.demo.controllers.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Indicadores de circulación de un rango de fechas")
+public class LoanAnalyticsResponse implements Serializable {
+
+    @Schema(description = "HOUR o DAY para series; category o branch para desgloses", example = "DAY")
+    private String groupBy;
+
+    private LocalDate from;
+    private LocalDate to;
+    private String branch;
+    private String category;
+
+    @Schema(description = "Totales del rango completo")
+    private Point totals;
+
+    private List<Point> points;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "Indicadores de un intervalo, una categoría o una sede")
+    public static class Point implements Serializable {
+        @Schema(description = "Inicio del intervalo (solo en series)")
+        private Instant bucket;
+
+        @Schema(description = "Categoría o sede (solo en desgloses)")
+        private String key;
+
+        private long loans;
+        private long returns;
+        private long overdueReturns;
+
+        @Schema(description = "Duración promedio en días de los préstamos devueltos")
+        private double averageLoanDays;
+
+        @Schema(description = "Proporción de devoluciones hechas después de la fecha esperada")
+        private double overdueRate;
+    }
+}
@@ -20,6 +20,7 @@ public class LoanResponse implements Serializable {
 
     private String id;
     private String status;
+    private String branch;
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
     private LocalDate loanDate;
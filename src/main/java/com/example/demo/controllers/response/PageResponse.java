@@ -0,0 +1,40 @@
+package com.example.demo.controllers.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Página de resultados. Se usa en lugar de {@code Page} de Spring Data para que la
+ * respuesta sea serializable en la caché y tenga un JSON estable.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Página de resultados de una consulta paginada")
+public class PageResponse<T> implements Serializable {
+
+    @Schema(description = "Elementos de la página")
+    private List<T> content;
+
+    @Schema(description = "Número de página (empieza en 0)", example = "0")
+    private int page;
+
+    @Schema(description = "Tamaño de la página", example = "20")
+    private int size;
+
+    @Schema(description = "Total de elementos disponibles", example = "135")
+    private long totalElements;
+
+    @Schema(description = "Total de páginas disponibles", example = "7")
+    private int totalPages;
+
+    public static <T> PageResponse<T> of(List<T> content, int page, int size, long totalElements) {
+        int totalPages = size > 0 ? (int) ((totalElements + size - 1) / size) : 0;
+        return new PageResponse<>(content, page, size, totalElements, totalPages);
+    }
+}
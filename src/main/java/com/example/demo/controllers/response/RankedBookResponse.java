@@ -0,0 +1,40 @@
+package com.example.demo.controllers.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Posición de un libro dentro de un ranking (mejor calificados o tendencia)")
+public class RankedBookResponse implements Serializable {
+
+    @Schema(description = "Posición en el ranking (empieza en 1)", example = "1")
+    private int rank;
+
+    @Schema(description = "ID del libro", example = "60c72b2f9b1d8c001f8e4a3c")
+    private String bookId;
+
+    @Schema(description = "Título del libro", example = "Cien años de soledad")
+    private String title;
+
+    @Schema(description = "URL de la portada del libro", example = "https://ejemplo.com/portada.jpg")
+    private String coverImageUrl;
+
+    @Schema(description = "Calificación promedio del libro", example = "4.5")
+    private Double averageRating;
+
+    @Schema(description = "Número de calificaciones recibidas", example = "120")
+    private Integer ratingsCount;
+
+    @Schema(description = "Puntaje usado para ordenar el ranking", example = "4.37")
+    private double score;
+}
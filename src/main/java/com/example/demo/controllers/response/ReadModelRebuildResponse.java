@@ -0,0 +1,32 @@
+package com.example.demo.controllers.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de la reconstrucción del modelo de lectura de libros")
+public class ReadModelRebuildResponse implements Serializable {
+
+    @Schema(description = "Libros leídos de la colección de origen", example = "1250")
+    private long books;
+
+    @Schema(description = "Documentos escritos o reemplazados", example = "1240")
+    private long written;
+
+    @Schema(description = "Documentos que ya estaban en la versión actual", example = "10")
+    private long unchanged;
+
+    @Schema(description = "Documentos eliminados por corresponder a libros borrados", example = "2")
+    private long removed;
+
+    @Schema(description = "Duración de la reconstrucción en milisegundos", example = "840")
+    private long elapsedMillis;
+}
@@ -0,0 +1,29 @@
+package com.example.demo.controllers.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Libro recomendado a partir de otro libro (lectores que tomaron X también tomaron Y)")
+public class RecommendationResponse implements Serializable {
+
+    @Schema(description = "ID del libro recomendado", example = "60c72b2f9b1d8c001f8e4a3c")
+    private String bookId;
+
+    @Schema(description = "Título del libro recomendado", example = "El amor en los tiempos del cólera")
+    private String title;
+
+    @Schema(description = "URL de la portada del libro", example = "https://ejemplo.com/portada.jpg")
+    private String coverImageUrl;
+
+    @Schema(description = "Similitud coseno entre ambos libros (0 a 1)", example = "0.42")
+    private double score;
+}
@@ -0,0 +1,29 @@
+package com.example.demo.controllers.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Sugerencia de autocompletado")
+public class SuggestionResponse implements Serializable {
+
+    @Schema(description = "Tipo de sugerencia", example = "title")
+    private String type;
+
+    @Schema(description = "ID del libro, autor o usuario")
+    private String id;
+
+    @Schema(description = "Texto sugerido", example = "Cien años de soledad")
+    private String text;
+
+    @Schema(description = "Popularidad usada para ordenar las sugerencias")
+    private long score;
+}
@@ -0,0 +1,115 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Navegación por categoría sobre 100.000 libros: el filtrado en memoria (findAll y filtro en Java,
+ * GET /category/{name}/books-in-memory) frente a la consulta indexada y paginada de
+ * GET /category/{name}/books. Las cachés se desactivan para medir las consultas. Se ejecuta a mano
+ * y solo contra una base local, por ejemplo
+ *
+ *   ./gradlew test --tests '*CategoryBrowseBenchmarkTests*' -Dbenchmarks=true \
+ *       -Dspring.data.mongodb.uri=mongodb://localhost:27017/biblioteca
+ *
+ * y deja en el log los percentiles de cada variante. Los libros creados se borran al terminar.
+ */
+@SpringBootTest(properties = {"spring.cache.type=none", "change-streams.enabled=false"})
+class CategoryBrowseBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(CategoryBrowseBenchmarkTests.class);
+
+	private static final int BOOKS = 100_000;
+	private static final int CATEGORIES = 100;
+	private static final int INSERT_BATCH = 5_000;
+	private static final int WARMUP = 3;
+	private static final int ITERATIONS = 20;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private BookService bookService;
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	@EnabledIfSystemProperty(named = "spring.data.mongodb.uri", matches = "mongodb://(localhost|127\\.0\\.0\\.1)[:/].*")
+	void categoryBrowse() {
+		String prefix = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+		try {
+			insertBooks(prefix);
+			String category = prefix + (CATEGORIES / 2);
+
+			log.info("[en memoria] {}",
+					measure(() -> bookService.findBooksByGenreInMemory(category).size()));
+			log.info("[indexada, rating] {}",
+					measure(() -> bookService.findBooksByCategory(category, "rating", 0, 20).getContent().size()));
+			log.info("[indexada, fecha, página 10] {}",
+					measure(() -> bookService.findBooksByCategory(category, "date", 10, 20).getContent().size()));
+		} finally {
+			mongoTemplate.remove(Query.query(Criteria.where("categories").regex("^" + prefix)), Book.class);
+		}
+	}
+
+	private void insertBooks(String prefix) {
+		LocalDate today = LocalDate.now();
+		List<Book> batch = new ArrayList<>(INSERT_BATCH);
+		for (int i = 0; i < BOOKS; i++) {
+			batch.add(Book.builder()
+					.title("Libro de benchmark " + i)
+					.synopsis("Navegación por categoría")
+					.author("Autor de pruebas")
+					.categories(Set.of(prefix + (i % CATEGORIES)))
+					.isbn("BENCH-" + prefix + i)
+					.publisher("Editorial de pruebas")
+					.language("es")
+					.publicationDate(today.minusDays(i % 3650))
+					.averageRating((i % 50) / 10.0)
+					.ratingsCount(i % 20)
+					.version(0L)
+					.build());
+			if (batch.size() == INSERT_BATCH) {
+				mongoTemplate.insertAll(batch);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			mongoTemplate.insertAll(batch);
+		}
+	}
+
+	private static String measure(Supplier<Integer> lookup) {
+		List<Long> samples = new ArrayList<>();
+		for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+			long start = System.nanoTime();
+			lookup.get();
+			if (i >= WARMUP) {
+				samples.add(System.nanoTime() - start);
+			}
+		}
+		Collections.sort(samples);
+		return String.format("p50=%.3fms p95=%.3fms p99=%.3fms",
+				percentile(samples, 0.50), percentile(samples, 0.95), percentile(samples, 0.99));
+	}
+
+	private static double percentile(List<Long> sorted, double p) {
+		int index = (int) Math.ceil(p * sorted.size()) - 1;
+		return sorted.get(Math.max(0, index)) / 1_000_000.0;
+	}
+}
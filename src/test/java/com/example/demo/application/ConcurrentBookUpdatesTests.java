@@ -0,0 +1,164 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.repository.BookRepository;
+import com.example.demo.controllers.domain.repository.LoanRepository;
+import com.example.demo.controllers.domain.repository.ReviewRepository;
+import com.example.demo.controllers.dto.BookRequest;
+import com.example.demo.controllers.dto.LoanRequest;
+import com.example.demo.controllers.dto.ReviewRequest;
+import com.example.demo.controllers.dto.UserRequest;
+import com.example.demo.controllers.exception.ActiveLoanExistsException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Favoritos, reseñas y préstamos concurrentes sobre un mismo libro: con @Version y reintentos
+ * ninguna actualización de las listas embebidas del libro se pierde. Escribe en la base, así que
+ * no forma parte de la suite normal; se ejecuta contra un MongoDB local, por ejemplo
+ *
+ *   ./gradlew test --tests '*ConcurrentBookUpdatesTests*' -Dbenchmarks=true \
+ *       -Dspring.data.mongodb.uri=mongodb://localhost:27017/?replicaSet=rs0
+ */
+@SpringBootTest
+class ConcurrentBookUpdatesTests {
+
+	private static final int USERS = 12;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private ReviewService reviewService;
+
+	@Autowired
+	private LoanService loanService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private ReviewRepository reviewRepository;
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	@EnabledIfSystemProperty(named = "spring.data.mongodb.uri", matches = "mongodb://(localhost|127\\.0\\.0\\.1)[:/].*")
+	void concurrentFavoritesReviewsAndLoansAreNotLost() throws Exception {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		String bookId = bookService.createBook(BookRequest.builder()
+				.title("Libro concurrente " + suffix)
+				.synopsis("Prueba de concurrencia")
+				.categories(Set.of("Pruebas"))
+				.isbn("TEST-" + suffix)
+				.author("Autor de pruebas")
+				.publisher("Editorial de pruebas")
+				.publicationDate(LocalDate.now())
+				.pageCount(100)
+				.language("Español")
+				.build()).getId();
+
+		List<String> userIds = new ArrayList<>();
+		try {
+			for (int i = 0; i < USERS; i++) {
+				userIds.add(userService.createUser(UserRequest.builder()
+						.fullName("Usuario " + i)
+						.cardNum("TEST-" + suffix + "-" + i)
+						.address("Calle " + i)
+						.email("usuario" + i + "@correo.com")
+						.number("300000000" + i)
+						.build()).getId());
+			}
+
+			AtomicInteger loansCreated = new AtomicInteger();
+			AtomicInteger loansRejected = new AtomicInteger();
+			CountDownLatch start = new CountDownLatch(1);
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (String userId : userIds) {
+				tasks.add(() -> {
+					start.await();
+					userService.addFavorite(userId, bookId);
+					return null;
+				});
+				tasks.add(() -> {
+					start.await();
+					reviewService.createReview(ReviewRequest.builder()
+							.bookId(bookId)
+							.userId(userId)
+							.rating(5)
+							.comment("Reseña concurrente")
+							.build());
+					return null;
+				});
+				tasks.add(() -> {
+					start.await();
+					LoanRequest request = new LoanRequest();
+					request.setBookId(bookId);
+					request.setUserId(userId);
+					try {
+						loanService.createLoan(request);
+						loansCreated.incrementAndGet();
+					} catch (ActiveLoanExistsException ex) {
+						loansRejected.incrementAndGet();
+					}
+					return null;
+				});
+			}
+
+			ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+			try {
+				List<Future<Void>> futures = new ArrayList<>();
+				tasks.forEach(task -> futures.add(executor.submit(task)));
+				start.countDown();
+				for (Future<Void> future : futures) {
+					future.get(60, TimeUnit.SECONDS);
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+
+			Book book = bookRepository.findById(bookId).orElseThrow();
+			assertEquals(USERS, book.getFavoritesCount());
+			assertEquals(USERS, book.getReviews().size());
+			assertEquals(USERS, book.getRatingsCount());
+			assertEquals(1, loansCreated.get());
+			assertEquals(USERS - 1, loansRejected.get());
+			assertEquals(1, book.getLoans().size());
+		} finally {
+			cleanUp(bookId, userIds);
+		}
+	}
+
+	// Borra los datos de la prueba por los mismos caminos que la aplicación
+	private void cleanUp(String bookId, List<String> userIds) {
+		reviewRepository.findByBook_BookId(bookId).forEach(review -> reviewService.deleteReviewById(review.getId()));
+		for (String userId : userIds) {
+			loanRepository.findByUser_UserId(userId).forEach(loan -> loanService.deleteLoan(loan.getId()));
+		}
+		userIds.forEach(userService::deleteUser);
+		bookService.deleteBook(bookId);
+	}
+
+}
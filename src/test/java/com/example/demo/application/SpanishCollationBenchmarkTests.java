@@ -0,0 +1,124 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.domain.entity.Author;
+import com.example.demo.controllers.domain.entity.Book;
+import com.example.demo.controllers.domain.repository.AuthorRepository;
+import com.example.demo.controllers.domain.repository.BookRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Búsqueda de autores por nombre escrito sin tildes: regex sin distinguir mayúsculas frente a la
+ * resolución que usa la aplicación (AuthorRepository.findByNameIgnoringAccents: exacta y luego
+ * con intercalación española sobre name_es), y lo mismo para los libros de una categoría
+ * (BookRepository.findByGenre sobre categories_es). Se
+ * ejecuta a mano y solo contra una base local, por ejemplo
+ *
+ *   ./gradlew test --tests '*SpanishCollationBenchmarkTests*' -Dbenchmarks=true \
+ *       -Dspring.data.mongodb.uri=mongodb://localhost:27017/biblioteca
+ *
+ * y deja en el log los percentiles y la etapa del plan ganador (IXSCAN o COLLSCAN) de cada
+ * variante. Los autores creados se borran al terminar.
+ */
+@SpringBootTest
+class SpanishCollationBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(SpanishCollationBenchmarkTests.class);
+
+	private static final int AUTHORS = 5_000;
+	private static final int WARMUP = 50;
+	private static final int ITERATIONS = 500;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private AuthorRepository authorRepository;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private SpanishCollationIndexes spanishCollationIndexes;
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	@EnabledIfSystemProperty(named = "spring.data.mongodb.uri", matches = "mongodb://(localhost|127\\.0\\.0\\.1)[:/].*")
+	void accentInsensitiveNameLookup() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		List<Author> authors = new ArrayList<>();
+		for (int i = 0; i < AUTHORS; i++) {
+			authors.add(Author.builder().name("Gabriel García Márquez " + suffix + " " + i).build());
+		}
+		mongoTemplate.insertAll(authors);
+		spanishCollationIndexes.ensureIndexes();
+		String typed = "gabriel garcia marquez " + suffix + " " + (AUTHORS / 2);
+
+		try {
+			Query regex = Query.query(Criteria.where("name").regex(DataAccessProfile.accentInsensitiveContains(typed), "i"));
+			Query collated = Query.query(Criteria.where("name").is(typed)).collation(DataAccessProfile.spanishCollation());
+			String genre = "realismo magico";
+			Query genreRegex = Query.query(Criteria.where("categories")
+					.regex("^" + DataAccessProfile.accentInsensitiveContains(genre) + "$", "i"));
+
+			log.info("[regex] {} plan={}",
+					measure(() -> mongoTemplate.find(regex, Author.class).size()), winningStage(regex, Author.class));
+			log.info("[intercalación es] {} plan={}",
+					measure(() -> authorRepository.findByNameIgnoringAccents(typed).isPresent() ? 1 : 0),
+					winningStage(collated, Author.class));
+			log.info("[libros por categoría, regex] {}",
+					measure(() -> mongoTemplate.find(genreRegex, Book.class).size()));
+			log.info("[libros por categoría, intercalación es] {}",
+					measure(() -> bookRepository.findByGenre(genre).size()));
+		} finally {
+			mongoTemplate.remove(Query.query(Criteria.where("name").regex(suffix)), Author.class);
+		}
+	}
+
+	private String winningStage(Query query, Class<?> type) {
+		Document find = new Document("find", mongoTemplate.getCollectionName(type))
+				.append("filter", query.getQueryObject());
+		query.getCollation().ifPresent(collation -> find.append("collation", collation.toDocument()));
+		Document command = new Document("explain", find);
+		Document plan = mongoTemplate.getDb().runCommand(command)
+				.get("queryPlanner", Document.class)
+				.get("winningPlan", Document.class);
+		while (plan.containsKey("inputStage")) {
+			plan = plan.get("inputStage", Document.class);
+		}
+		return plan.getString("stage");
+	}
+
+	private static String measure(Supplier<Integer> lookup) {
+		List<Long> samples = new ArrayList<>();
+		for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+			long start = System.nanoTime();
+			lookup.get();
+			if (i >= WARMUP) {
+				samples.add(System.nanoTime() - start);
+			}
+		}
+		Collections.sort(samples);
+		return String.format("p50=%.3fms p95=%.3fms p99=%.3fms",
+				percentile(samples, 0.50), percentile(samples, 0.95), percentile(samples, 0.99));
+	}
+
+	private static double percentile(List<Long> sorted, double p) {
+		int index = (int) Math.ceil(p * sorted.size()) - 1;
+		return sorted.get(Math.max(0, index)) / 1_000_000.0;
+	}
+}
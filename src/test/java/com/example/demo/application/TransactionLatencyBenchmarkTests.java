@@ -0,0 +1,130 @@
+package com.example.demo.application;
+
+import com.example.demo.controllers.dto.BookRequest;
+import com.example.demo.controllers.dto.LoanRequest;
+import com.example.demo.controllers.dto.UserRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Latencia de préstamo y devolución con y sin transacciones. No forma parte de la suite normal:
+ * se ejecuta solo contra un replica set local, por ejemplo
+ *
+ *   ./gradlew test --tests '*TransactionLatencyBenchmarkTests*' -Dbenchmarks=true \
+ *       -Dspring.data.mongodb.uri=mongodb://localhost:27017/?replicaSet=rs0
+ *
+ * y los percentiles quedan en el log de la prueba. El libro, el usuario y los préstamos creados
+ * se borran al terminar.
+ */
+abstract class TransactionLatencyBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(TransactionLatencyBenchmarkTests.class);
+
+	private static final int WARMUP = 20;
+	private static final int ITERATIONS = 200;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private LoanService loanService;
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	@EnabledIfSystemProperty(named = "spring.data.mongodb.uri", matches = "mongodb://(localhost|127\\.0\\.0\\.1)[:/].*")
+	void loanAndReturnLatency() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		String bookId = bookService.createBook(BookRequest.builder()
+				.title("Libro de benchmark " + suffix)
+				.synopsis("Medición de latencia")
+				.categories(Set.of("Pruebas"))
+				.isbn("BENCH-" + suffix)
+				.author("Autor de pruebas")
+				.publisher("Editorial de pruebas")
+				.publicationDate(LocalDate.now())
+				.pageCount(100)
+				.language("Español")
+				.build()).getId();
+		String userId = null;
+		try {
+			userId = userService.createUser(UserRequest.builder()
+					.fullName("Usuario benchmark")
+					.cardNum("BENCH-" + suffix)
+					.address("Calle 1")
+					.email("benchmark@correo.com")
+					.number("3000000000")
+					.build()).getId();
+
+			List<Long> loans = new ArrayList<>();
+			List<Long> returns = new ArrayList<>();
+			for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+				LoanRequest request = new LoanRequest();
+				request.setBookId(bookId);
+				request.setUserId(userId);
+
+				long start = System.nanoTime();
+				String loanId = loanService.createLoan(request).getId();
+				long loaned = System.nanoTime();
+				loanService.markAsReturned(loanId);
+				long returned = System.nanoTime();
+
+				if (i >= WARMUP) {
+					loans.add(loaned - start);
+					returns.add(returned - loaned);
+				}
+			}
+
+			log.info("{} createLoan {}", mode(), percentiles(loans));
+			log.info("{} markAsReturned {}", mode(), percentiles(returns));
+		} finally {
+			// Los préstamos devueltos se borran junto con el usuario
+			if (userId != null) {
+				userService.deleteUser(userId);
+			}
+			bookService.deleteBook(bookId);
+		}
+	}
+
+	abstract String mode();
+
+	private static String percentiles(List<Long> samples) {
+		Collections.sort(samples);
+		return String.format("p50=%.2fms p95=%.2fms p99=%.2fms",
+				percentile(samples, 0.50), percentile(samples, 0.95), percentile(samples, 0.99));
+	}
+
+	private static double percentile(List<Long> sorted, double p) {
+		int index = (int) Math.ceil(p * sorted.size()) - 1;
+		return sorted.get(Math.max(0, index)) / 1_000_000.0;
+	}
+
+	@SpringBootTest(properties = "mongodb.transactions.enabled=true")
+	static class WithTransactions extends TransactionLatencyBenchmarkTests {
+		@Override
+		String mode() {
+			return "[transacciones]";
+		}
+	}
+
+	@SpringBootTest(properties = "mongodb.transactions.enabled=false")
+	static class WithoutTransactions extends TransactionLatencyBenchmarkTests {
+		@Override
+		String mode() {
+			return "[sin transacciones]";
+		}
+	}
+}